@@ -2,6 +2,7 @@ package com.Sentinel.Policy_Management_Service.Controller;
 
 import com.Sentinel.Policy_Management_Service.DTO.EmployeeDTO;
 import com.Sentinel.Policy_Management_Service.DTO.PolicyInfoDto;
+import com.Sentinel.Policy_Management_Service.DTO.PolicyLimitDto;
 import com.Sentinel.Policy_Management_Service.Service.EmployeeService;
 import com.Sentinel.Policy_Management_Service.Service.PolicyService;
 import lombok.RequiredArgsConstructor;
@@ -9,6 +10,10 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 @RestController
 @RequestMapping("/employee")
 @RequiredArgsConstructor
@@ -59,12 +64,26 @@ public class EmployeeController {
     }
 
     @PostMapping("/policy_limit")
-    public ResponseEntity<?> getPolicyLimitOfUser(@RequestBody PolicyInfoDto infoDto) {
+    public ResponseEntity<?> getPolicyLimitOfUser(@RequestBody PolicyInfoDto infoDto,
+                                                  @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
         try {
             PolicyInfoDto response = policyService.getUserLimit(infoDto);
-            return new ResponseEntity<>(response, HttpStatus.OK);
+            String etag = policyService.limitEtag(response);
+            if (etag.equals(ifNoneMatch)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
+            return ResponseEntity.ok().eTag(etag).body(response);
         } catch (RuntimeException e) {
             return new ResponseEntity<>(e.getLocalizedMessage(), HttpStatus.NOT_FOUND);
         }
     }
+
+    // each limit carries its ETag, so a batch-filled cache entry can be revalidated through /policy_limit
+    @PostMapping("/policy_limits")
+    public ResponseEntity<?> getPolicyLimitsOfUsers(@RequestBody List<String> employeeIds) {
+        Map<String, PolicyLimitDto> limits = new HashMap<>();
+        policyService.getUserLimits(employeeIds).forEach((id, limit) ->
+                limits.put(id, new PolicyLimitDto(limit, policyService.limitEtag(id, limit))));
+        return new ResponseEntity<>(limits, HttpStatus.OK);
+    }
 }
@@ -0,0 +1,6 @@
+package com.Sentinel.Policy_Management_Service.DTO;
+
+public interface EmployeeLimitView {
+    String getEmployeeId();
+    Double getPolicyLimit();
+}
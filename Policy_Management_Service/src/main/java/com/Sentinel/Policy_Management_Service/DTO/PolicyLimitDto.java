@@ -0,0 +1,14 @@
+package com.Sentinel.Policy_Management_Service.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// one employee's entry in the /employee/policy_limits response, with the same ETag /employee/policy_limit sends
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PolicyLimitDto {
+    private Double policyLimit;
+    private String etag;
+}
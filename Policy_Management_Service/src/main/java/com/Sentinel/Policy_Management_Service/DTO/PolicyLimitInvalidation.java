@@ -0,0 +1,15 @@
+package com.Sentinel.Policy_Management_Service.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PolicyLimitInvalidation {
+    private List<String> employeeIds;
+    private boolean all;
+}
@@ -1,12 +1,23 @@
 package com.Sentinel.Policy_Management_Service.Repository;
 
+import com.Sentinel.Policy_Management_Service.DTO.EmployeeLimitView;
 import com.Sentinel.Policy_Management_Service.Model.Employee;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface EmployeeRepo extends JpaRepository<Employee, String> {
     Optional<Employee> findByName(String name);
+
+    @Query("select e.id from Employee e where e.policyNumber = :policyNumber")
+    List<String> findIdsByPolicyNumber(String policyNumber);
+
+    @Query("select e.id as employeeId, p.reimbursementLimit as policyLimit " +
+            "from Employee e join Policy p on p.id = e.policyNumber where e.id in :ids")
+    List<EmployeeLimitView> findLimitsByIds(Collection<String> ids);
 }
@@ -5,6 +5,7 @@ import com.Sentinel.Policy_Management_Service.Model.Employee;
 import com.Sentinel.Policy_Management_Service.Repository.EmployeeRepo;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
@@ -17,6 +18,8 @@ public class EmployeeService {
 
     private final EmployeeRepo employeeRepo;
     private final RolePolicyService rolePolicyService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PolicyCatalogService catalogService;
 
     public EmployeeDTO createEmployee(EmployeeDTO employeeDTO) {
         try {
@@ -27,6 +30,7 @@ public class EmployeeService {
                     .build();
             Employee saved = employeeRepo.save(employee);
             employeeDTO.setId(saved.getId());
+            eventPublisher.publishEvent(PolicyLimitChangedEvent.of(List.of(saved.getId())));
             return employeeDTO;
         } catch (Exception e) {
             log.error(e.getMessage());
@@ -37,6 +41,7 @@ public class EmployeeService {
     public String deleteEmployeeById(String id) {
         try {
             employeeRepo.deleteById(id);
+            eventPublisher.publishEvent(PolicyLimitChangedEvent.of(List.of(id)));
             return "Employee deleted Successfully";
         } catch (Exception e) {
             log.error(e.getMessage());
@@ -55,6 +60,7 @@ public class EmployeeService {
                 alreadySaved.setRole(employeeDTO.getRole());
             }
             employeeRepo.save(alreadySaved);
+            eventPublisher.publishEvent(PolicyLimitChangedEvent.of(List.of(alreadySaved.getId())));
             return employeeDTO;
         } catch (Exception e) {
             log.error(e.getMessage());
@@ -64,6 +70,12 @@ public class EmployeeService {
 
     public List<EmployeeDTO> getAllEmployee() {
         List<EmployeeDTO> result = new ArrayList<>();
+        if (catalogService.isEnabled()) {
+            for (PolicyCatalog.EmployeeEntry employee : catalogService.current().employees()) {
+                result.add(new EmployeeDTO(employee.id(), employee.name(), employee.role()));
+            }
+            return result;
+        }
         for(Employee employee : employeeRepo.findAll()) {
             EmployeeDTO dto = new EmployeeDTO();
             dto.setId(employee.getId());
@@ -75,6 +87,11 @@ public class EmployeeService {
     }
 
     public EmployeeDTO getEmployeeByName(String name) {
+        if (catalogService.isEnabled()) {
+            PolicyCatalog.EmployeeEntry employee = catalogService.current().employeeByName(name);
+            if(employee == null) throw new RuntimeException("Employee not found");
+            return new EmployeeDTO(employee.id(), employee.name(), employee.role());
+        }
         Employee employee = employeeRepo.findByName(name).orElse(null);
         if(employee == null) throw new RuntimeException("Employee not found");
         EmployeeDTO dto = new EmployeeDTO();
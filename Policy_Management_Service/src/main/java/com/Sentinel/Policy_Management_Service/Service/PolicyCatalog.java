@@ -0,0 +1,95 @@
+package com.Sentinel.Policy_Management_Service.Service;
+
+import com.Sentinel.Policy_Management_Service.DTO.Role;
+import com.Sentinel.Policy_Management_Service.Model.Employee;
+import com.Sentinel.Policy_Management_Service.Model.Policy;
+import com.Sentinel.Policy_Management_Service.Model.RolePolicyMapping;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-only copy of policies, role mappings and employees. Never modified after construction, a write
+ * builds a new catalog and swaps it in, so readers need no locking and never see a half applied change.
+ */
+public final class PolicyCatalog {
+
+    public record PolicyEntry(String id, String policyName, Double limit, Role role) {}
+
+    public record EmployeeEntry(String id, String name, Role role, String policyNumber) {}
+
+    private final Map<Role, PolicyEntry> policiesByRole;
+    private final Map<String, PolicyEntry> policiesById;
+    private final Map<String, EmployeeEntry> employeesById;
+    private final Map<String, EmployeeEntry> employeesByName;
+    private final long builtAt;
+
+    public PolicyCatalog(List<Policy> policies, List<RolePolicyMapping> mappings, List<Employee> employees) {
+        Map<String, Role> roleByPolicy = new HashMap<>(mappings.size() * 2);
+        for (RolePolicyMapping mapping : mappings) {
+            roleByPolicy.put(mapping.getPolicyNumber(), mapping.getRole());
+        }
+
+        Map<String, PolicyEntry> byId = new LinkedHashMap<>(policies.size() * 2);
+        Map<Role, PolicyEntry> byRole = new EnumMap<>(Role.class);
+        for (Policy policy : policies) {
+            Role role = roleByPolicy.get(policy.getId());
+            PolicyEntry entry = new PolicyEntry(policy.getId(), policy.getPolicyName(), policy.getReimbursementLimit(), role);
+            byId.put(entry.id(), entry);
+            if (role != null) {
+                byRole.put(role, entry);
+            }
+        }
+
+        Map<String, EmployeeEntry> employeeById = new LinkedHashMap<>(employees.size() * 2);
+        Map<String, EmployeeEntry> employeeByName = new HashMap<>(employees.size() * 2);
+        for (Employee employee : employees) {
+            EmployeeEntry entry = new EmployeeEntry(employee.getId(), employee.getName(), employee.getRole(), employee.getPolicyNumber());
+            employeeById.put(entry.id(), entry);
+            employeeByName.put(entry.name(), entry);
+        }
+
+        this.policiesByRole = Collections.unmodifiableMap(byRole);
+        this.policiesById = Collections.unmodifiableMap(byId);
+        this.employeesById = Collections.unmodifiableMap(employeeById);
+        this.employeesByName = Collections.unmodifiableMap(employeeByName);
+        this.builtAt = System.currentTimeMillis();
+    }
+
+    public PolicyEntry policyForRole(Role role) {
+        return role == null ? null : policiesByRole.get(role);
+    }
+
+    public PolicyEntry policy(String id) {
+        return id == null ? null : policiesById.get(id);
+    }
+
+    public Collection<PolicyEntry> mappedPolicies() {
+        return policiesByRole.values();
+    }
+
+    public EmployeeEntry employee(String id) {
+        return id == null ? null : employeesById.get(id);
+    }
+
+    public EmployeeEntry employeeByName(String name) {
+        return name == null ? null : employeesByName.get(name);
+    }
+
+    public Collection<EmployeeEntry> employees() {
+        return employeesById.values();
+    }
+
+    public int size() {
+        return policiesById.size() + employeesById.size();
+    }
+
+    public long builtAt() {
+        return builtAt;
+    }
+}
@@ -0,0 +1,77 @@
+package com.Sentinel.Policy_Management_Service.Service;
+
+import com.Sentinel.Policy_Management_Service.Repository.EmployeeRepo;
+import com.Sentinel.Policy_Management_Service.Repository.PolicyRepo;
+import com.Sentinel.Policy_Management_Service.Repository.RolePolicyRepo;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class PolicyCatalogService {
+
+    private final PolicyRepo policyRepo;
+    private final RolePolicyRepo rolePolicyRepo;
+    private final EmployeeRepo employeeRepo;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${policy.catalog.enabled:true}")
+    private boolean enabled;
+
+    private final AtomicReference<PolicyCatalog> current = new AtomicReference<>();
+
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) return;
+        rebuild();
+        meterRegistry.gauge("policy.catalog.age.seconds", current,
+                ref -> (System.currentTimeMillis() - ref.get().builtAt()) / 1000.0);
+        meterRegistry.gauge("policy.catalog.entries", current, ref -> ref.get().size());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public PolicyCatalog current() {
+        return current.get();
+    }
+
+    // every write through the services publishes a PolicyLimitChangedEvent; rebuilding after commit and before
+    // the notifier runs means the reimbursement service never refetches a limit from the previous snapshot
+    @Order(0)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(PolicyLimitChangedEvent event) {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    // serialized so a slow rebuild can never swap in an older snapshot over a newer one. A lock instead of
+    // synchronized because the rebuild waits on the database, which would pin a virtual thread's carrier
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            PolicyCatalog catalog = new PolicyCatalog(policyRepo.findAll(), rolePolicyRepo.findAll(), employeeRepo.findAll());
+            current.set(catalog);
+            long nanos = sample.stop(meterRegistry.timer("policy.catalog.rebuild"));
+            log.info("policy catalog rebuilt with {} entries in {} ms", catalog.size(), nanos / 1_000_000);
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+}
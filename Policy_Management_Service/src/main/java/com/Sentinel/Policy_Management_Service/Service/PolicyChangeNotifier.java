@@ -0,0 +1,52 @@
+package com.Sentinel.Policy_Management_Service.Service;
+
+import com.Sentinel.Policy_Management_Service.DTO.PolicyLimitInvalidation;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.client.RestClient;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Service
+@Slf4j
+public class PolicyChangeNotifier {
+
+    private final RestClient restClient = RestClient.create();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @Value("${reimbursement.service.invalidation-url:}")
+    private String invalidationUrl;
+
+    // runs after the change is committed (or right away outside a transaction), so the reimbursement
+    // service can never re-cache the old limit between the eviction and the commit
+    @Order(1)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPolicyLimitChanged(PolicyLimitChangedEvent event) {
+        if (invalidationUrl == null || invalidationUrl.isBlank()) return;
+        if (!event.all() && event.employeeIds().isEmpty()) return;
+        PolicyLimitInvalidation body = new PolicyLimitInvalidation(event.employeeIds(), event.all());
+        executor.execute(() -> {
+            try {
+                restClient.post()
+                        .uri(invalidationUrl)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(body)
+                        .retrieve()
+                        .toBodilessEntity();
+            } catch (Exception e) {
+                log.warn("policy limit invalidation failed, cached limits expire by TTL: {}", e.getMessage());
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.close();
+    }
+}
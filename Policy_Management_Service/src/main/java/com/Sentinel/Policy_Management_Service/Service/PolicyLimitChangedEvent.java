@@ -0,0 +1,14 @@
+package com.Sentinel.Policy_Management_Service.Service;
+
+import java.util.List;
+
+/**
+ * Published after every write to policies, role mappings or employees, carrying the employees whose
+ * reimbursement limit may have changed. An empty list with {@code all} set means every cached limit has to go.
+ */
+public record PolicyLimitChangedEvent(List<String> employeeIds, boolean all) {
+
+    public static PolicyLimitChangedEvent of(List<String> employeeIds) {
+        return new PolicyLimitChangedEvent(employeeIds, false);
+    }
+}
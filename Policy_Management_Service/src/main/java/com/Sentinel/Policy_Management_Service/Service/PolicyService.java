@@ -1,5 +1,6 @@
 package com.Sentinel.Policy_Management_Service.Service;
 
+import com.Sentinel.Policy_Management_Service.DTO.EmployeeLimitView;
 import com.Sentinel.Policy_Management_Service.DTO.PolicyDTO;
 import com.Sentinel.Policy_Management_Service.DTO.PolicyInfoDto;
 import com.Sentinel.Policy_Management_Service.Model.Employee;
@@ -9,11 +10,15 @@ import com.Sentinel.Policy_Management_Service.Repository.EmployeeRepo;
 import com.Sentinel.Policy_Management_Service.Repository.PolicyRepo;
 import com.Sentinel.Policy_Management_Service.Repository.RolePolicyRepo;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
@@ -22,8 +27,16 @@ public class PolicyService {
     private final PolicyRepo policyRepo;
     private final EmployeeRepo employeeRepo;
     private final RolePolicyRepo rolePolicyRepo;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PolicyCatalogService catalogService;
+
+    // keeps the IN list well below the bind parameter limit of the postgres driver
+    private static final int LIMIT_QUERY_CHUNK = 5000;
 
     public PolicyInfoDto getUserLimit(PolicyInfoDto infoDto) {
+        if (catalogService.isEnabled()) {
+            return getUserLimit(catalogService.current(), infoDto);
+        }
 
         Employee employee = employeeRepo.findById(infoDto.getEmployeeId()).orElse(null);
         if(employee == null) throw new RuntimeException("No Employee Exists by employee id");
@@ -38,6 +51,52 @@ public class PolicyService {
         return response;
     }
 
+    private PolicyInfoDto getUserLimit(PolicyCatalog catalog, PolicyInfoDto infoDto) {
+        PolicyCatalog.EmployeeEntry employee = catalog.employee(infoDto.getEmployeeId());
+        if(employee == null) throw new RuntimeException("No Employee Exists by employee id");
+        PolicyCatalog.PolicyEntry policy = catalog.policy(employee.policyNumber());
+        if(policy == null) throw new RuntimeException("No policy exists by the given policy number");
+        return new PolicyInfoDto(infoDto.getEmployeeId(), policy.limit());
+    }
+
+    /**
+     * Limits for many employees at once, one employee-policy join per chunk of ids instead of two lookups per employee.
+     * Unknown employees, and employees whose policy no longer exists, are left out of the result.
+     */
+    public Map<String, Double> getUserLimits(List<String> employeeIds) {
+        List<String> ids = new ArrayList<>(new LinkedHashSet<>(employeeIds));
+        Map<String, Double> limits = new HashMap<>(ids.size() * 2);
+        if (catalogService.isEnabled()) {
+            PolicyCatalog catalog = catalogService.current();
+            for (String id : ids) {
+                PolicyCatalog.EmployeeEntry employee = catalog.employee(id);
+                PolicyCatalog.PolicyEntry policy = employee == null ? null : catalog.policy(employee.policyNumber());
+                if (policy != null) {
+                    limits.put(id, policy.limit());
+                }
+            }
+            return limits;
+        }
+        for (int from = 0; from < ids.size(); from += LIMIT_QUERY_CHUNK) {
+            List<String> chunk = ids.subList(from, Math.min(ids.size(), from + LIMIT_QUERY_CHUNK));
+            for (EmployeeLimitView view : employeeRepo.findLimitsByIds(chunk)) {
+                limits.put(view.getEmployeeId(), view.getPolicyLimit());
+            }
+        }
+        return limits;
+    }
+
+    // validator for the near-cache in the reimbursement service, changes whenever the limit does
+    public String limitEtag(PolicyInfoDto info) {
+        return limitEtag(info.getEmployeeId(), info.getPolicyLimit());
+    }
+
+    public String limitEtag(String employeeId, Double policyLimit) {
+        long bits = Double.doubleToLongBits(policyLimit == null ? 0.0 : policyLimit);
+        return "\"" + Integer.toHexString(employeeId.hashCode()) + "-" + Long.toHexString(bits) + "\"";
+    }
+
+    @Transactional
     public PolicyDTO postPolicy(PolicyDTO policyDTO) {
         if(policyRepo.existsByPolicyName(policyDTO.getPolicyName())) throw new RuntimeException("Policy name already exists");
         if(rolePolicyRepo.existsByRole(policyDTO.getRole())) throw new RuntimeException("Policy for role already exists");
@@ -53,10 +112,13 @@ public class PolicyService {
 
         rolePolicyRepo.save(rolePolicyMapping);
 
+        eventPublisher.publishEvent(PolicyLimitChangedEvent.of(List.of()));
+
         return policyDTO;
     }
 
 
+    @Transactional
     public PolicyDTO updatePolicy(PolicyDTO policyDTO) {
         Policy policy = policyRepo.findByPolicyName(policyDTO.getPolicyName())
                 .orElseThrow(() -> new RuntimeException("Policy not found"));
@@ -76,6 +138,8 @@ public class PolicyService {
         mapping.setRole(policyDTO.getRole());
         rolePolicyRepo.save(mapping);
 
+        eventPublisher.publishEvent(PolicyLimitChangedEvent.of(employeeRepo.findIdsByPolicyNumber(policy.getId())));
+
         return policyDTO;
     }
 
@@ -86,10 +150,19 @@ public class PolicyService {
         rolePolicyRepo.deleteByPolicyNumber(id);
         policyRepo.deleteById(id);
 
+        eventPublisher.publishEvent(PolicyLimitChangedEvent.of(employeeRepo.findIdsByPolicyNumber(id)));
+
         return "Policy deleted successfully";
     }
 
     public List<PolicyDTO> getAllPolicies() {
+        if (catalogService.isEnabled()) {
+            List<PolicyDTO> result = new ArrayList<>();
+            for (PolicyCatalog.PolicyEntry policy : catalogService.current().mappedPolicies()) {
+                result.add(new PolicyDTO(policy.id(), policy.policyName(), policy.limit(), policy.role()));
+            }
+            return result;
+        }
         List<RolePolicyMapping> list = rolePolicyRepo.findAll();
         List<PolicyDTO> result = new ArrayList<>();
         for(RolePolicyMapping rolePolicyMapping : list) {
@@ -10,8 +10,14 @@ import org.springframework.stereotype.Service;
 public class RolePolicyService {
 
     private final RolePolicyRepo repo;
+    private final PolicyCatalogService catalogService;
 
     public String resolvePolicyForRole(Role role) throws RuntimeException{
+        if (catalogService.isEnabled()) {
+            PolicyCatalog.PolicyEntry policy = catalogService.current().policyForRole(role);
+            if (policy == null) throw new RuntimeException("No policy mapped for role");
+            return policy.id();
+        }
         return repo.findByRole(role).orElseThrow(() -> new RuntimeException("No policy mapped for role")).getPolicyNumber();
     }
 }
@@ -0,0 +1,59 @@
+#!/usr/bin/env bash
+# Finds the highest submission rate one Reimbursement Service pod sustains. Runs closed-loop load against
+# POST /reimbursement/ at increasing concurrency and reports, per step, completed submissions per second,
+# error rate and p95 latency. The sustained rate is the best step with < 1% errors and p95 under the SLO.
+#
+# Run it once per thread mode against the same pod size and the same downstream services, e.g.
+#   VIRTUAL_THREADS_ENABLED=false  ->  ./sustained-submissions.sh receipt.jpg > platform.txt
+#   VIRTUAL_THREADS_ENABLED=true   ->  ./sustained-submissions.sh receipt.jpg > virtual.txt
+#
+# usage: sustained-submissions.sh <receipt image> [employee id]
+# env:   BASE_URL (http://localhost:8080), STEPS ("8 16 32 64 128 256"), DURATION seconds per step (60),
+#        SLO_MS p95 limit (5000), ENDPOINT (/reimbursement/, or /reimbursement/async for the queued path)
+set -euo pipefail
+
+RECEIPT=${1:?usage: $0 <receipt image> [employee id]}
+EMPLOYEE=${2:-EMP001}
+BASE_URL=${BASE_URL:-http://localhost:8080}
+ENDPOINT=${ENDPOINT:-/reimbursement/}
+STEPS=${STEPS:-"8 16 32 64 128 256"}
+DURATION=${DURATION:-60}
+SLO_MS=${SLO_MS:-5000}
+
+WORK=$(mktemp -d)
+trap 'rm -rf "$WORK"' EXIT
+
+# one client loop; every request gets its own amount so the duplicate checks do not short-circuit the run
+client() {
+  local id=$1 end=$2 out=$3 n=0
+  while (( $(date +%s) < end )); do
+    n=$((n + 1))
+    local amount="$((id * 100000 + n)).00"
+    local data="{\"employeeId\":\"$EMPLOYEE\",\"amount\":$amount,\"expenseDate\":\"$(date +%F)\",\"vendorName\":\"load $id-$n\",\"category\":\"Travel\",\"description\":\"load test\",\"paymentMethod\":\"CARD\"}"
+    curl -s -o /dev/null -w '%{http_code} %{time_total}\n' --max-time 120 \
+      -F "data=$data;type=application/json" -F "file=@$RECEIPT" \
+      "$BASE_URL$ENDPOINT" >> "$out" || echo "000 120" >> "$out"
+  done
+}
+
+best=0
+printf '%-12s %-12s %-10s %-10s\n' concurrency per_second errors_% p95_ms
+for c in $STEPS; do
+  out="$WORK/step-$c"
+  : > "$out"
+  end=$(( $(date +%s) + DURATION ))
+  for i in $(seq 1 "$c"); do client "$i" "$end" "$out" & done
+  wait
+
+  total=$(wc -l < "$out")
+  ok=$(awk '$1 ~ /^2/' "$out" | wc -l)
+  errors=$(awk -v t="$total" -v ok="$ok" 'BEGIN { printf "%.2f", t ? (t - ok) * 100 / t : 100 }')
+  rate=$(awk -v ok="$ok" -v d="$DURATION" 'BEGIN { printf "%.2f", ok / d }')
+  p95=$(awk '{ print $2 * 1000 }' "$out" | sort -n | awk '{ v[NR] = $1 } END { i = int(NR * 0.95); if (i < 1) i = 1; printf "%.0f", v[i] }')
+  printf '%-12s %-12s %-10s %-10s\n' "$c" "$rate" "$errors" "$p95"
+
+  if awk -v e="$errors" -v p="$p95" -v s="$SLO_MS" 'BEGIN { exit !(e < 1 && p <= s) }'; then
+    best=$(awk -v a="$best" -v b="$rate" 'BEGIN { print (b > a) ? b : a }')
+  fi
+done
+echo "max sustained submissions per second: $best"
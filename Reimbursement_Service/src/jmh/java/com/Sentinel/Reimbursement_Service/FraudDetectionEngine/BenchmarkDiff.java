@@ -0,0 +1,66 @@
+package com.Sentinel.Reimbursement_Service.FraudDetectionEngine;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares two JMH json result files (e.g. jmh-0.0.1.json against jmh-0.0.2.json)
+ * and prints one line per benchmark and parameter set with the relative change of the score.
+ */
+public class BenchmarkDiff {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("usage: BenchmarkDiff <baseline.json> <candidate.json>");
+            System.exit(1);
+        }
+        Map<String, JsonNode> baseline = read(args[0]);
+        Map<String, JsonNode> candidate = read(args[1]);
+
+        System.out.printf("%-90s %14s %14s %9s%n", "benchmark", "baseline", "candidate", "change");
+        for (Map.Entry<String, JsonNode> entry : candidate.entrySet()) {
+            JsonNode now = entry.getValue();
+            JsonNode before = baseline.get(entry.getKey());
+            String unit = now.path("scoreUnit").asText();
+            double score = now.path("score").asDouble();
+            if (before == null) {
+                System.out.printf("%-90s %14s %14.3f %9s  %s%n", entry.getKey(), "-", score, "new", unit);
+                continue;
+            }
+            double old = before.path("score").asDouble();
+            if (old == 0) {
+                // no relative change from a zero baseline
+                System.out.printf("%-90s %14.3f %14.3f %9s  %s%n", entry.getKey(), old, score, score == 0 ? "0.0%" : "n/a", unit);
+                continue;
+            }
+            System.out.printf("%-90s %14.3f %14.3f %+8.1f%%  %s%n", entry.getKey(), old, score, (score - old) / old * 100, unit);
+        }
+        for (String removed : baseline.keySet()) {
+            if (!candidate.containsKey(removed)) {
+                System.out.printf("%-90s %14.3f %14s %9s%n", removed, baseline.get(removed).path("score").asDouble(), "-", "removed");
+            }
+        }
+    }
+
+    private static Map<String, JsonNode> read(String path) throws IOException {
+        Map<String, JsonNode> results = new TreeMap<>();
+        for (JsonNode run : new ObjectMapper().readTree(new File(path))) {
+            StringBuilder key = new StringBuilder(run.path("benchmark").asText().replace("com.Sentinel.Reimbursement_Service.", ""));
+            JsonNode params = run.path("params");
+            Map<String, String> sorted = new TreeMap<>();
+            for (Iterator<Map.Entry<String, JsonNode>> it = params.fields(); it.hasNext(); ) {
+                Map.Entry<String, JsonNode> param = it.next();
+                sorted.put(param.getKey(), param.getValue().asText());
+            }
+            sorted.forEach((name, value) -> key.append(' ').append(name).append('=').append(value));
+            results.put(key.toString(), run.path("primaryMetric"));
+        }
+        return results;
+    }
+}
@@ -0,0 +1,174 @@
+package com.Sentinel.Reimbursement_Service.FraudDetectionEngine;
+
+import com.Sentinel.Reimbursement_Service.DTO.OCRdata;
+import com.Sentinel.Reimbursement_Service.DTO.ResponseDTO;
+import com.Sentinel.Reimbursement_Service.Entity.ReimbursementRequest;
+import com.Sentinel.Reimbursement_Service.Entity.RequestHistory;
+import com.Sentinel.Reimbursement_Service.Repository.DailySpendRepo;
+import com.Sentinel.Reimbursement_Service.Repository.ReimbursementHistoryRepo;
+import com.Sentinel.Reimbursement_Service.Service.EmployeePolicyService;
+import com.Sentinel.Reimbursement_Service.Service.JsonCodec;
+import com.Sentinel.Reimbursement_Service.Service.ReceiptBuffer;
+import com.Sentinel.Reimbursement_Service.Service.SpendLedger;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.awt.image.BufferedImage;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full runEngine pass with the history and ledger repositories and the policy service stubbed out.
+ * ioMillis simulates the round trip of each DB query and of the policy service call,
+ * which is what the concurrent mode overlaps.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FraudEngineBenchmark {
+
+    @Param({"false", "true"})
+    public boolean concurrent;
+
+    @Param({"0", "5"})
+    public int ioMillis;
+
+    private ExecutorService executor;
+    private FraudDetectionService engine;
+    private ReimbursementRequest request;
+    private OCRdata extracted;
+    private ReceiptBuffer receipt;
+    private BufferedImage image;
+
+    @Setup
+    public void setUp() {
+        ReimbursementHistoryRepo historyRepo = stubHistoryRepo(ioMillis);
+        HashIndexService hashIndex = new HashIndexService(historyRepo);
+        ReflectionTestUtils.setField(hashIndex, "bloomExpectedEntries", 200_000L);
+        ReflectionTestUtils.setField(hashIndex, "bloomFalsePositiveRate", 0.01);
+        hashIndex.load();
+        SplittableRandom random = new SplittableRandom(3);
+        for (int i = 0; i < 100_000; i++) {
+            RequestHistory history = new RequestHistory();
+            history.setId(Integer.toString(i));
+            history.setImagePhash(random.nextLong());
+            history.setTextHash(random.nextLong());
+            hashIndex.indexAfterCommit(history);
+        }
+
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        EmployeePolicyService policyService = new EmployeePolicyService(WebClient.create(), new JsonCodec(), new SimpleMeterRegistry(), executor) {
+            @Override
+            public Double getPolicyLimitOfUser(String employeeId) {
+                pause(ioMillis);
+                return 5000.0;
+            }
+        };
+
+        SpendLedger spendLedger = new SpendLedger(historyRepo, stubDailySpendRepo(ioMillis), null, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(spendLedger, "enabled", true);
+
+        engine = new FraudDetectionService(new PerceptualHashService(), new TextHashService(), historyRepo, hashIndex, policyService, spendLedger, executor, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(engine, "concurrent", concurrent);
+        ReflectionTestUtils.setField(engine, "checkTimeoutMs", 10_000L);
+        ReflectionTestUtils.setField(engine, "historyPrefilter", true);
+
+        request = new ReimbursementRequest();
+        request.setEmployeeId("emp-1");
+        request.setAmount(803.0);
+        request.setVendorName("Hotel Saravana Bhavan");
+        request.setExpenseDate(LocalDate.of(2024, 3, 12));
+
+        extracted = new OCRdata();
+        extracted.setAmount(803.0);
+        extracted.setVendorName("Hotel Saravana Bhavan");
+        extracted.setExpenseDate(LocalDate.of(2024, 3, 12));
+
+        image = ReceiptImages.render(1600, 1200, 5);
+        receipt = ReceiptBuffer.wrap(ReceiptImages.encode(image, "jpg"), "receipt.jpg", "image/jpeg");
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.close();
+    }
+
+    @Benchmark
+    public ResponseDTO runEngine() {
+        // the image is decoded up front so this measures the engine rather than the JPEG decoder
+        FraudContext context = new FraudContext(receipt, TextHashBenchmark.RECEIPT);
+        context.setImage(image);
+        return engine.runEngine(request, extracted, context);
+    }
+
+    private static ReimbursementHistoryRepo stubHistoryRepo(int ioMillis) {
+        return (ReimbursementHistoryRepo) Proxy.newProxyInstance(
+                ReimbursementHistoryRepo.class.getClassLoader(),
+                new Class<?>[]{ReimbursementHistoryRepo.class},
+                (proxy, method, args) -> {
+                    String name = method.getName();
+                    if (name.equals("findDuplicateMatch")) {
+                        pause(ioMillis);
+                        return null;
+                    }
+                    if (name.startsWith("find")) {
+                        pause(ioMillis);
+                        return List.of();
+                    }
+                    if (name.equals("toString")) {
+                        return "stubHistoryRepo";
+                    }
+                    return neutral(method);
+                });
+    }
+
+    private static DailySpendRepo stubDailySpendRepo(int ioMillis) {
+        return (DailySpendRepo) Proxy.newProxyInstance(
+                DailySpendRepo.class.getClassLoader(),
+                new Class<?>[]{DailySpendRepo.class},
+                (proxy, method, args) -> {
+                    String name = method.getName();
+                    if (name.equals("findTotal")) {
+                        pause(ioMillis);
+                        return Optional.empty();
+                    }
+                    if (name.equals("toString")) {
+                        return "stubDailySpendRepo";
+                    }
+                    return neutral(method);
+                });
+    }
+
+    // whatever else the engine starts calling answers like an empty table instead of failing the run
+    private static Object neutral(Method method) {
+        Class<?> type = method.getReturnType();
+        if (type == boolean.class) return false;
+        if (type == int.class) return 0;
+        if (type == long.class) return 0L;
+        if (type == double.class) return 0.0;
+        if (type == Optional.class) return Optional.empty();
+        if (type.isAssignableFrom(List.class)) return List.of();
+        return null;
+    }
+
+    private static void pause(int millis) {
+        if (millis == 0) return;
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.Sentinel.Reimbursement_Service.FraudDetectionEngine;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Best-distance lookup of one hash against the history: the boxed List&lt;Long&gt; scan the engine used to do,
+ * a primitive long[] scan, and the multi-index HammingIndex.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class HammingScanBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int historySize;
+
+    private final PerceptualHashService service = new PerceptualHashService();
+    private List<Long> boxed;
+    private long[] primitive;
+    private HammingIndex index;
+    private long[] queries;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(7);
+        boxed = new ArrayList<>(historySize);
+        primitive = new long[historySize];
+        index = new HammingIndex(HashIndexService.MAX_DISTANCE);
+        for (int i = 0; i < historySize; i++) {
+            long hash = random.nextLong();
+            boxed.add(hash);
+            primitive[i] = hash;
+            index.add(Integer.toString(i), hash);
+        }
+        // half the queries are near duplicates of a stored hash, half are unrelated
+        queries = new long[1024];
+        for (int i = 0; i < queries.length; i++) {
+            long hash = i % 2 == 0 ? primitive[random.nextInt(historySize)] : random.nextLong();
+            for (int flip = random.nextInt(6); flip > 0; flip--) {
+                hash ^= 1L << random.nextInt(64);
+            }
+            queries[i] = hash;
+        }
+    }
+
+    private long query() {
+        return queries[next++ & (queries.length - 1)];
+    }
+
+    @Benchmark
+    public int boxedScan() {
+        long hash = query();
+        int best = Integer.MAX_VALUE;
+        for (Long old : boxed) {
+            best = Math.min(best, service.hammingDistance(hash, old));
+        }
+        return best;
+    }
+
+    @Benchmark
+    public int primitiveScan() {
+        long hash = query();
+        int best = Integer.MAX_VALUE;
+        for (long old : primitive) {
+            best = Math.min(best, Long.bitCount(hash ^ old));
+        }
+        return best;
+    }
+
+    @Benchmark
+    public int multiIndex() {
+        return index.nearest(query(), HashIndexService.MAX_DISTANCE).distance();
+    }
+}
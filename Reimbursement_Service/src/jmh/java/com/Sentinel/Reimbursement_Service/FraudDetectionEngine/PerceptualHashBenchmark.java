@@ -0,0 +1,44 @@
+package com.Sentinel.Reimbursement_Service.FraudDetectionEngine;
+
+import com.Sentinel.Reimbursement_Service.Service.ReceiptBuffer;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decode + pHash of a JPEG receipt, from a small scan up to a 12 MP phone photo, with a full ImageIO decode
+ * and with the subsampled one. Run with -prof gc to compare the allocation per hash as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PerceptualHashBenchmark {
+
+    @Param({"640x480", "1600x1200", "4000x3000"})
+    public String size;
+
+    @Param({"false", "true"})
+    public boolean sampled;
+
+    private final PerceptualHashService service = new PerceptualHashService();
+    private ReceiptBuffer receipt;
+
+    @Setup
+    public void setUp() {
+        ReflectionTestUtils.setField(service, "sampled", sampled);
+        ReflectionTestUtils.setField(service, "readerPoolSize", 8);
+        service.init();
+        String[] dims = size.split("x");
+        byte[] jpeg = ReceiptImages.encode(ReceiptImages.render(Integer.parseInt(dims[0]), Integer.parseInt(dims[1]), 1), "jpg");
+        receipt = ReceiptBuffer.wrap(jpeg, "receipt.jpg", "image/jpeg");
+    }
+
+    @Benchmark
+    public long generatePhash() {
+        return service.generatePhash(receipt);
+    }
+}
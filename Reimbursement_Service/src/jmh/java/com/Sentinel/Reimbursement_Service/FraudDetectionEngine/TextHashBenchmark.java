@@ -0,0 +1,52 @@
+package com.Sentinel.Reimbursement_Service.FraudDetectionEngine;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Regex based SimHash (LegacyTextHash) against the char-level tokenizer in TextHashService.
+ * Run with -prof gc to compare allocation per operation as well as time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TextHashBenchmark {
+
+    static final String RECEIPT = """
+            HOTEL SARAVANA BHAVAN
+            No 12, Anna Salai, Chennai - 600002
+            GSTIN: 33AABCS1234F1Z5   Ph: 044-2345 6789
+            Bill No: SB/2024/004512        Date: 12/03/2024  13:42
+            Table: 7   Covers: 3   Steward: RAVI
+            ------------------------------------------------
+            Item                    Qty    Rate     Amount
+            Masala Dosa              2    120.00    240.00
+            Filter Coffee            3     45.00    135.00
+            Mini Tiffin              1    210.00    210.00
+            Sweet Lassi              2     90.00    180.00
+            ------------------------------------------------
+            Sub Total                                765.00
+            CGST @ 2.5%                               19.13
+            SGST @ 2.5%                               19.13
+            Round Off                                 -0.26
+            GRAND TOTAL                          Rs. 803.00
+            Paid by: UPI   Ref: 412398765432
+            Thank you! Visit again. www.saravanabhavan.com
+            """;
+
+    private final TextHashService service = new TextHashService();
+
+    @Benchmark
+    public long legacyRegex() {
+        return LegacyTextHash.generateHash(RECEIPT);
+    }
+
+    @Benchmark
+    public long charTokenizer() {
+        return service.generateHash(RECEIPT);
+    }
+}
@@ -0,0 +1,68 @@
+package com.Sentinel.Reimbursement_Service.Service;
+
+import com.Sentinel.Reimbursement_Service.DTO.OCRdata;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of a Gemini and a tesseract response: a new ObjectMapper + JsonNode tree + regex passes per call
+ * (the previous AIService / OCRService code) against the shared JsonCodec. Run with -prof gc to see the
+ * allocation per operation next to the time:
+ * mvn -P benchmark test-compile exec:exec -Djmh.include="JsonCodecBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonCodecBenchmark {
+
+    static final String GEMINI_RESPONSE = """
+            {"candidates":[{"content":{"parts":[{"text":"```json\\n{\\n  \\"amount\\": 803.00,\\n  \\"expenseDate\\": \\"2024-03-12\\",\\n  \\"vendorName\\": \\"Hotel Saravana Bhavan\\",\\n  \\"paymentMode\\": \\"UPI\\",\\n  \\"address\\": \\"No 12, Anna Salai, Chennai - 600002\\",\\n  \\"billNumber\\": \\"SB/2024/004512\\",\\n  \\"taxAmount\\": 38.26\\n}\\n```\\n"}],"role":"model"},"finishReason":"STOP","avgLogprobs":-0.0123,"safetyRatings":[{"category":"HARM_CATEGORY_HARASSMENT","probability":"NEGLIGIBLE"},{"category":"HARM_CATEGORY_HATE_SPEECH","probability":"NEGLIGIBLE"}]}],"usageMetadata":{"promptTokenCount":412,"candidatesTokenCount":96,"totalTokenCount":508},"modelVersion":"gemini-2.0-flash"}""";
+
+    static final String OCR_RESPONSE = """
+            {"data":{"exit":{"code":0,"signal":null},"stderr":"","stdout":"HOTEL SARAVANA BHAVAN\\nNo 12, Anna Salai, Chennai - 600002\\nBill No: SB/2024/004512        Date: 12/03/2024  13:42\\nMasala Dosa              2    120.00    240.00\\nFilter Coffee            3     45.00    135.00\\nSub Total                                765.00\\nCGST @ 2.5%                               19.13\\nSGST @ 2.5%                               19.13\\nGRAND TOTAL                          Rs. 803.00\\nPaid by: UPI   Ref: 412398765432\\n\\n\\f"}}""";
+
+    private final JsonCodec codec = new JsonCodec();
+
+    @Benchmark
+    public OCRdata geminiLegacy() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.registerModule(new JavaTimeModule());
+        mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        mapper.configure(DeserializationFeature.READ_UNKNOWN_ENUM_VALUES_AS_NULL, true);
+        JsonNode root = mapper.readTree(GEMINI_RESPONSE);
+        JsonNode textNode = root.path("candidates").get(0).path("content").path("parts").get(0).path("text");
+        String jsonText = textNode.asText()
+                .replaceAll("```json\\s*", "")
+                .replaceAll("```\\s*", "")
+                .replaceAll("^\\s+", "")
+                .replaceAll("\\s+$", "")
+                .trim();
+        return mapper.readValue(jsonText, OCRdata.class);
+    }
+
+    @Benchmark
+    public OCRdata geminiCodec() throws Exception {
+        return codec.readOCRdata(JsonCodec.stripFences(codec.geminiText(GEMINI_RESPONSE)));
+    }
+
+    @Benchmark
+    public String ocrLegacy() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        JsonNode root = mapper.readTree(OCR_RESPONSE);
+        String text = root.path("data").path("stdout").asText();
+        return text.replaceAll("[\\s\\u0000-\\u001F]+$", "");
+    }
+
+    @Benchmark
+    public String ocrCodec() throws Exception {
+        return JsonCodec.stripTrailingControl(codec.ocrStdout(OCR_RESPONSE));
+    }
+}
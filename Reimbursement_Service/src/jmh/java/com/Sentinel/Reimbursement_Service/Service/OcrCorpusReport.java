@@ -0,0 +1,142 @@
+package com.Sentinel.Reimbursement_Service.Service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * OCR latency and character accuracy over a corpus of receipts, each sent to a running tesseract-server once
+ * as uploaded and once through {@link ReceiptImagePreprocessor}. Every image needs a sibling .txt holding its
+ * transcription. Latency is end to end, so it includes the preprocessing itself.
+ * <pre>
+ * mvn -P benchmark test-compile exec:exec@ocr-corpus -Docr.corpus=path/to/corpus [-Docr.url=...]
+ * </pre>
+ */
+public final class OcrCorpusReport {
+
+    private static final String OPTIONS = "{\"languages\": [\"eng\"]}";
+
+    private OcrCorpusReport() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("usage: OcrCorpusReport <tesseract url> <corpus dir> [max-edge] [binarize]");
+            System.exit(2);
+        }
+        WebClient client = WebClient.create(args[0]);
+        int maxEdge = args.length > 2 ? Integer.parseInt(args[2]) : 2400;
+        boolean binarize = args.length > 3 && Boolean.parseBoolean(args[3]);
+        OCRService original = ocrService(client, false, maxEdge, binarize);
+        OCRService preprocessed = ocrService(client, true, maxEdge, binarize);
+
+        List<Path> images = corpus(Path.of(args[1]));
+        if (images.isEmpty()) {
+            System.err.println("no images with a .txt transcription in " + args[1]);
+            System.exit(2);
+        }
+
+        long[] originalMs = new long[images.size()];
+        long[] preprocessedMs = new long[images.size()];
+        double[] originalAccuracy = new double[images.size()];
+        double[] preprocessedAccuracy = new double[images.size()];
+        System.out.printf("%-32s %10s %12s %12s %10s %10s%n", "file", "bytes", "ms", "ms (prep)", "acc", "acc (prep)");
+        for (int i = 0; i < images.size(); i++) {
+            Path image = images.get(i);
+            ReceiptBuffer receipt = ReceiptBuffer.wrap(Files.readAllBytes(image), image.getFileName().toString(), "image/*");
+            String expected = Files.readString(transcription(image));
+            // alternate which variant goes first so a warming server does not favour either
+            if (i % 2 == 0) {
+                originalAccuracy[i] = accuracy(expected, timed(original, receipt, originalMs, i));
+                preprocessedAccuracy[i] = accuracy(expected, timed(preprocessed, receipt, preprocessedMs, i));
+            } else {
+                preprocessedAccuracy[i] = accuracy(expected, timed(preprocessed, receipt, preprocessedMs, i));
+                originalAccuracy[i] = accuracy(expected, timed(original, receipt, originalMs, i));
+            }
+            System.out.printf("%-32s %10d %12d %12d %10.3f %10.3f%n", image.getFileName(), receipt.size(),
+                    originalMs[i], preprocessedMs[i], originalAccuracy[i], preprocessedAccuracy[i]);
+        }
+
+        System.out.println();
+        System.out.printf("%-14s %8s %8s %8s %10s%n", "", "mean ms", "p50 ms", "p95 ms", "accuracy");
+        summary("original", originalMs, originalAccuracy);
+        summary("preprocessed", preprocessedMs, preprocessedAccuracy);
+    }
+
+    private static OCRService ocrService(WebClient client, boolean enabled, int maxEdge, boolean binarize) {
+        ReceiptImagePreprocessor preprocessor = new ReceiptImagePreprocessor(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(preprocessor, "enabled", enabled);
+        ReflectionTestUtils.setField(preprocessor, "maxEdge", maxEdge);
+        ReflectionTestUtils.setField(preprocessor, "binarize", binarize);
+        return new OCRService(client, new JsonCodec(), preprocessor, new SimpleMeterRegistry());
+    }
+
+    private static List<Path> corpus(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(f -> f.getFileName().toString().toLowerCase().matches(".*\\.(jpe?g|png|tiff?|bmp)"))
+                    .filter(f -> Files.exists(transcription(f)))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static Path transcription(Path image) {
+        String name = image.getFileName().toString();
+        return image.resolveSibling(name.substring(0, name.lastIndexOf('.')) + ".txt");
+    }
+
+    private static String timed(OCRService service, ReceiptBuffer receipt, long[] millis, int i) throws Exception {
+        long start = System.nanoTime();
+        String text = service.extractText(receipt, OPTIONS);
+        millis[i] = (System.nanoTime() - start) / 1_000_000;
+        return text;
+    }
+
+    private static void summary(String name, long[] millis, double[] accuracy) {
+        long[] sorted = millis.clone();
+        Arrays.sort(sorted);
+        System.out.printf("%-14s %8.0f %8d %8d %10.3f%n", name, Arrays.stream(millis).average().orElse(0),
+                sorted[(sorted.length - 1) / 2], sorted[(int) Math.ceil(sorted.length * 0.95) - 1],
+                Arrays.stream(accuracy).average().orElse(0));
+    }
+
+    /**
+     * 1 - character edit distance / transcription length, after collapsing whitespace; 1.0 is a perfect read.
+     */
+    static double accuracy(String expected, String actual) {
+        String a = normalize(expected);
+        String b = normalize(actual == null ? "" : actual);
+        if (a.isEmpty()) return b.isEmpty() ? 1.0 : 0.0;
+        return Math.max(0.0, 1.0 - (double) editDistance(a, b) / a.length());
+    }
+
+    private static String normalize(String text) {
+        return text.strip().replaceAll("\\s+", " ");
+    }
+
+    private static int editDistance(String a, String b) {
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int substitution = previous[j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+}
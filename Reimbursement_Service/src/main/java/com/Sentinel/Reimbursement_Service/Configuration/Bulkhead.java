@@ -0,0 +1,87 @@
+package com.Sentinel.Reimbursement_Service.Configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Caps the number of concurrent calls to one dependency. A call waits at most maxWaitMs for a permit (on a
+ * bounded elastic thread, never on the event loop) and is rejected after that, so a slow dependency can only
+ * tie up its own permits instead of every request thread.
+ */
+public class Bulkhead {
+
+    private final String name;
+    private final int maxConcurrent;
+    private final long maxWaitMs;
+    private final Semaphore permits;
+    private final Timer waitTimer;
+    private final MeterRegistry meterRegistry;
+
+    public Bulkhead(String name, int maxConcurrent, long maxWaitMs, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.maxConcurrent = maxConcurrent;
+        this.maxWaitMs = maxWaitMs;
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.meterRegistry = meterRegistry;
+        this.waitTimer = meterRegistry.timer("http.client.bulkhead.wait", "client", name);
+        meterRegistry.gauge("http.client.bulkhead.saturation", List.of(Tag.of("client", name)),
+                permits, p -> (double) (maxConcurrent - p.availablePermits()) / maxConcurrent);
+    }
+
+    public ExchangeFilterFunction filter() {
+        return (request, next) -> Mono.usingWhen(acquire(), permit -> next.exchange(request),
+                permit -> release(), (permit, error) -> release(), permit -> release());
+    }
+
+    private Mono<Boolean> acquire() {
+        return Mono.defer(() -> {
+            if (permits.tryAcquire()) {
+                waitTimer.record(0, TimeUnit.NANOSECONDS);
+                return Mono.just(true);
+            }
+            if (maxWaitMs <= 0) {
+                return reject();
+            }
+            long start = System.nanoTime();
+            AtomicBoolean cancelled = new AtomicBoolean();
+            return Mono.fromCallable(() -> {
+                        boolean acquired = permits.tryAcquire(maxWaitMs, TimeUnit.MILLISECONDS);
+                        if (acquired && cancelled.get()) {
+                            permits.release();
+                            return false;
+                        }
+                        return acquired;
+                    })
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .doOnCancel(() -> cancelled.set(true))
+                    .flatMap(acquired -> {
+                        waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                        return acquired ? Mono.just(true) : reject();
+                    });
+        });
+    }
+
+    private Mono<Boolean> reject() {
+        meterRegistry.counter("http.client.bulkhead.rejected", "client", name).increment();
+        return Mono.error(new BulkheadFullException(name + " bulkhead full, " + maxConcurrent + " calls in flight"));
+    }
+
+    private Mono<Void> release() {
+        return Mono.fromRunnable(permits::release);
+    }
+
+    public static class BulkheadFullException extends RuntimeException {
+        public BulkheadFullException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.Sentinel.Reimbursement_Service.Configuration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Follows spring.threads.virtual.enabled, the same switch that moves Tomcat's request threads and the
+ * scheduler to virtual threads. With it off the executors go back to platform threads, which is the
+ * configuration the virtual-thread mode is compared against.
+ */
+@Configuration
+public class ExecutorConfig {
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Bean(destroyMethod = "close")
+    public ExecutorService fraudCheckExecutor() {
+        return executor("fraud-check-", 0);
+    }
+
+    @Bean(destroyMethod = "close")
+    public ExecutorService ingestExecutor() {
+        return executor("ingest-", 0);
+    }
+
+    // the worker never hands out more than reimbursement.jobs.workers jobs, so the virtual variant needs no bound
+    @Bean(destroyMethod = "close")
+    public ExecutorService jobExecutor(@Value("${reimbursement.jobs.workers:4}") int workers) {
+        return executor("reimbursement-job-", workers);
+    }
+
+    // fraud checks and the batchers wait on tasks of the same executor, so its platform variant must not be
+    // a fixed pool; 0 means a cached pool bounded only by the callers
+    private ExecutorService executor(String prefix, int platformThreads) {
+        if (virtualThreads) {
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(prefix, 0).factory());
+        }
+        ThreadFactory factory = Thread.ofPlatform().name(prefix, 0).factory();
+        return platformThreads > 0
+                ? Executors.newFixedThreadPool(platformThreads, factory)
+                : Executors.newCachedThreadPool(factory);
+    }
+}
@@ -0,0 +1,112 @@
+package com.Sentinel.Reimbursement_Service.Configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Streams JFR's jdk.VirtualThreadPinned events while the service runs in virtual-thread mode. A virtual thread
+ * that blocks inside a synchronized block or a native frame keeps its carrier thread, and with few carriers
+ * that quietly serializes requests. Every pin longer than the threshold is counted as jvm.threads.virtual.pinned,
+ * tagged with the frame that holds it, and the first stack of each such frame is logged.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PinningDiagnostics {
+
+    private static final String EVENT = "jdk.VirtualThreadPinned";
+    private static final String OWN_PACKAGE = "com.Sentinel.";
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Value("${diagnostics.pinning.enabled:true}")
+    private boolean enabled;
+
+    @Value("${diagnostics.pinning.threshold-ms:20}")
+    private long thresholdMs;
+
+    @Value("${diagnostics.pinning.stack-depth:12}")
+    private int stackDepth;
+
+    private final Set<String> reported = ConcurrentHashMap.newKeySet();
+
+    private RecordingStream stream;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled || !virtualThreads) return;
+        try {
+            stream = new RecordingStream();
+            stream.enable(EVENT).withThreshold(Duration.ofMillis(thresholdMs)).withStackTrace();
+            stream.onEvent(EVENT, this::onPinned);
+            stream.startAsync();
+            log.info("reporting virtual threads pinned for more than {} ms", thresholdMs);
+        } catch (RuntimeException e) {
+            // JFR can be missing from stripped runtimes, the service works without the diagnostics
+            log.warn("pinning diagnostics unavailable", e);
+            stream = null;
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    private void onPinned(RecordedEvent event) {
+        List<RecordedFrame> frames = frames(event);
+        String culprit = culprit(frames);
+        meterRegistry.timer("jvm.threads.virtual.pinned", "frame", culprit).record(event.getDuration());
+        if (reported.add(culprit)) {
+            StringBuilder stack = new StringBuilder();
+            frames.stream().limit(stackDepth).forEach(frame -> stack.append("\n\tat ")
+                    .append(frame.getMethod().getType().getName()).append('.').append(frame.getMethod().getName())
+                    .append(':').append(frame.getLineNumber()));
+            log.warn("virtual thread pinned for {} ms in {}{}", event.getDuration().toMillis(), culprit, stack);
+        }
+    }
+
+    private static List<RecordedFrame> frames(RecordedEvent event) {
+        RecordedStackTrace stackTrace = event.getStackTrace();
+        return stackTrace == null ? List.of() : stackTrace.getFrames();
+    }
+
+    // our own frame if there is one, otherwise the first one outside the JDK, which names the dependency
+    private static String culprit(List<RecordedFrame> frames) {
+        String firstForeign = null;
+        for (RecordedFrame frame : frames) {
+            if (!frame.isJavaFrame()) continue;
+            String type = frame.getMethod().getType().getName();
+            if (type.startsWith(OWN_PACKAGE)) {
+                return type + "." + frame.getMethod().getName();
+            }
+            if (firstForeign == null && !isJdk(type)) {
+                firstForeign = type + "." + frame.getMethod().getName();
+            }
+        }
+        return firstForeign != null ? firstForeign : "jdk";
+    }
+
+    private static boolean isJdk(String type) {
+        return type.startsWith("java.") || type.startsWith("jdk.") || type.startsWith("sun.");
+    }
+}
@@ -0,0 +1,53 @@
+package com.Sentinel.Reimbursement_Service.Configuration;
+
+import java.util.concurrent.Callable;
+
+/**
+ * End-to-end deadline of the request the current thread works for, as epoch millis. Set by RequestDeadlineFilter,
+ * carried into executor tasks with {@link #propagate(Callable)} and enforced by the outbound WebClient filters.
+ */
+public final class RequestDeadline {
+
+    public static final String HEADER = "X-Request-Deadline";
+
+    private static final ThreadLocal<Long> DEADLINE = new ThreadLocal<>();
+
+    private RequestDeadline() {
+    }
+
+    public static Long current() {
+        return DEADLINE.get();
+    }
+
+    public static void set(Long epochMillis) {
+        if (epochMillis == null) {
+            DEADLINE.remove();
+        } else {
+            DEADLINE.set(epochMillis);
+        }
+    }
+
+    public static void clear() {
+        DEADLINE.remove();
+    }
+
+    public static <T> Callable<T> propagate(Callable<T> task) {
+        Long deadline = current();
+        if (deadline == null) return task;
+        return () -> {
+            Long previous = current();
+            set(deadline);
+            try {
+                return task.call();
+            } finally {
+                set(previous);
+            }
+        };
+    }
+
+    public static class DeadlineExceededException extends RuntimeException {
+        public DeadlineExceededException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.Sentinel.Reimbursement_Service.Configuration;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+// a caller can shorten the budget with X-Request-Deadline (epoch millis), never extend it past the default
+@Component
+public class RequestDeadlineFilter extends OncePerRequestFilter {
+
+    @Value("${http.deadline.default-ms:90000}")
+    private long defaultBudgetMs;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long deadline = System.currentTimeMillis() + defaultBudgetMs;
+        String header = request.getHeader(RequestDeadline.HEADER);
+        if (header != null) {
+            try {
+                deadline = Math.min(deadline, Long.parseLong(header.trim()));
+            } catch (NumberFormatException ignored) {
+                // keep the default budget
+            }
+        }
+        RequestDeadline.set(deadline);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            RequestDeadline.clear();
+        }
+    }
+}
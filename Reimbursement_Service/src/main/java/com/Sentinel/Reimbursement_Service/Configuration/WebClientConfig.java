@@ -1,13 +1,45 @@
 package com.Sentinel.Reimbursement_Service.Configuration;
 
+import com.Sentinel.Reimbursement_Service.Configuration.RequestDeadline.DeadlineExceededException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.channel.ChannelOption;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * One WebClient per dependency, each with its own Reactor Netty connection pool, timeouts and bulkhead, so a slow
+ * Tesseract pod can only exhaust the OCR pool. Every setting can be overridden per client under
+ * http.client.{gemini|ocr|policy}.*; pool metrics are published as reactor.netty.connection.provider.*.
+ */
+@Slf4j
 @Configuration
 public class WebClientConfig {
 
+    private final Environment environment;
+    private final MeterRegistry meterRegistry;
+    private final List<ConnectionProvider> providers = new ArrayList<>();
+
+    public WebClientConfig(Environment environment, MeterRegistry meterRegistry) {
+        this.environment = environment;
+        this.meterRegistry = meterRegistry;
+    }
+
     @Bean
     public WebClient.Builder webClientBuilder() {
         return WebClient.builder();
@@ -15,6 +47,83 @@ public class WebClientConfig {
 
     @Bean
     public WebClient ocrClient(WebClient.Builder webClientBuilder, @Value("${ocrBaseUrl}") String url) {
-        return webClientBuilder.baseUrl(url).build();
+        return client("ocr", webClientBuilder.clone().baseUrl(url), new ClientDefaults(8, 8, 30_000));
     }
+
+    @Bean
+    public WebClient geminiClient(WebClient.Builder webClientBuilder) {
+        return client("gemini", webClientBuilder.clone(), new ClientDefaults(32, 16, 60_000));
+    }
+
+    @Bean
+    public WebClient policyClient(WebClient.Builder webClientBuilder) {
+        return client("policy", webClientBuilder.clone(), new ClientDefaults(32, 32, 3_000));
+    }
+
+    @PreDestroy
+    public void disposePools() {
+        providers.forEach(ConnectionProvider::dispose);
+    }
+
+    private WebClient client(String name, WebClient.Builder builder, ClientDefaults defaults) {
+        String prefix = "http.client." + name + ".";
+        int maxConnections = environment.getProperty(prefix + "max-connections", Integer.class, defaults.maxConnections());
+        int maxConcurrent = environment.getProperty(prefix + "max-concurrent", Integer.class, defaults.maxConcurrent());
+        long responseTimeoutMs = environment.getProperty(prefix + "response-timeout-ms", Long.class, defaults.responseTimeoutMs());
+        int connectTimeoutMs = environment.getProperty(prefix + "connect-timeout-ms", Integer.class, 2_000);
+        int pendingAcquireMax = environment.getProperty(prefix + "pending-acquire-max", Integer.class, maxConnections * 4);
+        long pendingAcquireTimeoutMs = environment.getProperty(prefix + "pending-acquire-timeout-ms", Long.class, 5_000L);
+        long bulkheadWaitMs = environment.getProperty(prefix + "bulkhead-wait-ms", Long.class, 2_000L);
+        boolean poolMetrics = environment.getProperty(prefix + "pool-metrics", Boolean.class, true);
+
+        ConnectionProvider provider = ConnectionProvider.builder(name)
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMax)
+                .pendingAcquireTimeout(Duration.ofMillis(pendingAcquireTimeoutMs))
+                .maxIdleTime(Duration.ofSeconds(30))
+                .metrics(poolMetrics)
+                .build();
+        providers.add(provider);
+
+        HttpClient httpClient = HttpClient.create(provider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs)
+                .responseTimeout(Duration.ofMillis(responseTimeoutMs));
+
+        Bulkhead bulkhead = new Bulkhead(name, maxConcurrent, bulkheadWaitMs, meterRegistry);
+        log.info("{} client: {} connections, {} concurrent calls, {} ms response timeout",
+                name, maxConnections, maxConcurrent, responseTimeoutMs);
+
+        // the deadline filter is outermost so the time spent waiting on the bulkhead counts against the deadline
+        return builder
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .filter(deadlineFilter(name))
+                .filter(bulkhead.filter())
+                .build();
+    }
+
+    // runs on the thread that subscribes, i.e. the one calling block(), which is where the deadline lives
+    private ExchangeFilterFunction deadlineFilter(String name) {
+        return (request, next) -> {
+            Long deadline = RequestDeadline.current();
+            if (deadline == null) {
+                return next.exchange(request);
+            }
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                meterRegistry.counter("http.client.deadline.exceeded", "client", name).increment();
+                return Mono.error(new DeadlineExceededException("request deadline passed before calling " + name));
+            }
+            ClientRequest withDeadline = ClientRequest.from(request)
+                    .header(RequestDeadline.HEADER, Long.toString(deadline))
+                    .build();
+            return next.exchange(withDeadline)
+                    .timeout(Duration.ofMillis(remaining))
+                    .onErrorMap(TimeoutException.class, e -> {
+                        meterRegistry.counter("http.client.deadline.exceeded", "client", name).increment();
+                        return new DeadlineExceededException("request deadline passed while calling " + name);
+                    });
+        };
+    }
+
+    private record ClientDefaults(int maxConnections, int maxConcurrent, long responseTimeoutMs) {}
 }
@@ -0,0 +1,27 @@
+package com.Sentinel.Reimbursement_Service.Controller;
+
+import com.Sentinel.Reimbursement_Service.DTO.PolicyLimitInvalidation;
+import com.Sentinel.Reimbursement_Service.Service.EmployeePolicyService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/policy-cache")
+public class PolicyCacheController {
+
+    private final EmployeePolicyService employeePolicyService;
+
+    // called by the policy management service after a policy or an employee changed
+    @PostMapping("/invalidate")
+    public ResponseEntity<?> invalidate(@RequestBody PolicyLimitInvalidation invalidation) {
+        if (invalidation.isAll() || invalidation.getEmployeeIds() == null) {
+            employeePolicyService.invalidateAll();
+        } else {
+            employeePolicyService.invalidate(invalidation.getEmployeeIds());
+        }
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    }
+}
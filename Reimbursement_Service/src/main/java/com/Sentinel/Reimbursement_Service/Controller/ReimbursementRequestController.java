@@ -1,7 +1,16 @@
 package com.Sentinel.Reimbursement_Service.Controller;
 
+import com.Sentinel.Reimbursement_Service.DTO.FraudLevel;
 import com.Sentinel.Reimbursement_Service.DTO.ReimbursementRequestDTO;
+import com.Sentinel.Reimbursement_Service.DTO.RequestFilter;
+import com.Sentinel.Reimbursement_Service.DTO.Status;
+import com.Sentinel.Reimbursement_Service.Service.BulkSubmissionService;
+import com.Sentinel.Reimbursement_Service.Service.JsonCodec;
 import com.Sentinel.Reimbursement_Service.Service.ReimbursementService;
+import com.Sentinel.Reimbursement_Service.Service.RequestExportService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -9,6 +18,15 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
 
 @RestController
 @RequiredArgsConstructor
@@ -16,6 +34,9 @@ import org.springframework.web.multipart.MultipartFile;
 public class ReimbursementRequestController {
 
     private final ReimbursementService reimbursementService;
+    private final BulkSubmissionService bulkSubmissionService;
+    private final JsonCodec jsonCodec;
+    private final RequestExportService exportService;
 
     @PostMapping(value = "/", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<?> createReimbursement(@RequestPart("data") ReimbursementRequestDTO data, @RequestPart("file")MultipartFile file) {
@@ -26,11 +47,117 @@ public class ReimbursementRequestController {
         }
     }
 
+    @PostMapping(value = "/async", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> submitReimbursement(@RequestPart("data") ReimbursementRequestDTO data, @RequestPart("file")MultipartFile file) {
+        try {
+            return new ResponseEntity<>(Map.of("id", reimbursementService.submitAsync(data, file)), HttpStatus.ACCEPTED);
+        } catch (Exception e) {
+            return new ResponseEntity<>(e.getLocalizedMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    // data is a JSON array matched by position with the files parts; one result line per receipt as it finishes
+    @PostMapping(value = "/bulk", consumes = MediaType.MULTIPART_FORM_DATA_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void submitBulk(@RequestPart("data") List<ReimbursementRequestDTO> data, @RequestPart("files") List<MultipartFile> files,
+                           HttpServletResponse response) throws IOException, InterruptedException {
+        try {
+            bulkSubmissionService.validate(data, files);
+        } catch (IllegalArgumentException e) {
+            response.setStatus(HttpStatus.BAD_REQUEST.value());
+            response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+            response.getWriter().write(e.getLocalizedMessage());
+            return;
+        }
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        OutputStream out = response.getOutputStream();
+        bulkSubmissionService.submit(data, files, result -> {
+            try {
+                out.write(jsonCodec.write(result).getBytes(StandardCharsets.UTF_8));
+                out.write('\n');
+                out.flush();
+            } catch (IOException e) {
+                // the items are still processed, the client can find them through /requests/{employeeId}
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    @GetMapping("/status/{id}")
+    public ResponseEntity<?> getRequestStatus(@PathVariable String id) {
+        try {
+            return new ResponseEntity<>(reimbursementService.getRequestStatus(id), HttpStatus.OK);
+        } catch (RuntimeException e) {
+            return new ResponseEntity<>(e.getLocalizedMessage(), HttpStatus.NOT_FOUND);
+        }
+    }
+
     @GetMapping("/requests")
     public ResponseEntity<?> getAllRequests() {
         return new ResponseEntity<>(reimbursementService.getAllRequests(), HttpStatus.OK);
     }
 
+    // keyset pages, pass the nextCursor of a page to get the one after it
+    @GetMapping("/requests/page")
+    public ResponseEntity<?> getRequestPage(@RequestParam(required = false) String cursor,
+                                            @RequestParam(defaultValue = "25") int size,
+                                            @RequestParam(required = false) FraudLevel fraudLevel,
+                                            @RequestParam(required = false) Status status,
+                                            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return page(new RequestFilter(null, fraudLevel, status, from, to), cursor, size);
+    }
+
+    @GetMapping("/requests/{id}/page")
+    public ResponseEntity<?> getRequestPageOfEmployee(@PathVariable String id,
+                                                      @RequestParam(required = false) String cursor,
+                                                      @RequestParam(defaultValue = "25") int size,
+                                                      @RequestParam(required = false) FraudLevel fraudLevel,
+                                                      @RequestParam(required = false) Status status,
+                                                      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return page(new RequestFilter(id, fraudLevel, status, from, to), cursor, size);
+    }
+
+    private ResponseEntity<?> page(RequestFilter filter, String cursor, int size) {
+        try {
+            return new ResponseEntity<>(reimbursementService.getRequestPage(filter, cursor, size), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getLocalizedMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    // streams every request (or one employee's) as NDJSON or CSV without loading the table into memory
+    @GetMapping("/export")
+    public void exportRequests(@RequestParam(defaultValue = "ndjson") String format,
+                               @RequestParam(required = false) String employeeId,
+                               HttpServletResponse response) throws IOException {
+        RequestExportService.Format exportFormat;
+        try {
+            exportFormat = RequestExportService.Format.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            response.setStatus(HttpStatus.BAD_REQUEST.value());
+            response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+            response.getWriter().write("Unknown export format " + format);
+            return;
+        }
+        if (exportFormat == RequestExportService.Format.CSV) {
+            response.setContentType("text/csv;charset=UTF-8");
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"reimbursement-requests.csv\"");
+        } else {
+            response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        }
+        try {
+            exportService.export(employeeId, exportFormat, response.getOutputStream());
+        } catch (RuntimeException e) {
+            if (response.isCommitted()) throw e;
+            response.reset();
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+            response.getWriter().write(e.getLocalizedMessage());
+        }
+    }
+
     @GetMapping("/requests/{id}")
     public ResponseEntity<?> getAllRequestsOfEmployee(@PathVariable String id) {
         try {
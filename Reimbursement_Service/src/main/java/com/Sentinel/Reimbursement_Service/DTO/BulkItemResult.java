@@ -0,0 +1,15 @@
+package com.Sentinel.Reimbursement_Service.DTO;
+
+import lombok.Data;
+
+@Data
+public class BulkItemResult {
+    private int index;
+    private String fileName;
+    private String requestId;
+    private Status status;
+    private FraudLevel fraudLevel;
+    private Integer fraudScore;
+    private String description;
+    private String error;
+}
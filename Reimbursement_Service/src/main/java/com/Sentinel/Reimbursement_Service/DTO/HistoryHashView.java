@@ -0,0 +1,13 @@
+package com.Sentinel.Reimbursement_Service.DTO;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+public interface HistoryHashView {
+    String getId();
+    long getImagePhash();
+    long getTextHash();
+    String getVendorName();
+    LocalDate getExpenseDate();
+    LocalDateTime getCreatedAt();
+}
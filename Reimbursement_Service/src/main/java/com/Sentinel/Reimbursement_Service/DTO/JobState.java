@@ -0,0 +1,5 @@
+package com.Sentinel.Reimbursement_Service.DTO;
+
+public enum JobState {
+    QUEUED, RUNNING, DONE, DEAD
+}
@@ -0,0 +1,6 @@
+package com.Sentinel.Reimbursement_Service.DTO;
+
+public interface LegacyOcrView {
+    String getId();
+    String getOcrData();
+}
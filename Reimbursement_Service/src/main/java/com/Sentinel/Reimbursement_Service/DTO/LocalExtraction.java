@@ -0,0 +1,30 @@
+package com.Sentinel.Reimbursement_Service.DTO;
+
+import lombok.Getter;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Receipt fields parsed in-process from the OCR text, with a 0..1 confidence for every field that was found.
+ */
+@Getter
+public class LocalExtraction {
+
+    private final OCRdata data = new OCRdata();
+    private final Map<String, Double> confidence = new LinkedHashMap<>();
+
+    public double confidenceOf(String field) {
+        return confidence.getOrDefault(field, 0.0);
+    }
+
+    public boolean isConfident(double threshold, Collection<String> requiredFields) {
+        for (String field : requiredFields) {
+            if (confidenceOf(field) < threshold) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,4 @@
+package com.Sentinel.Reimbursement_Service.DTO;
+
+public record ReceiptExtraction(String ocrText, OCRdata data) {
+}
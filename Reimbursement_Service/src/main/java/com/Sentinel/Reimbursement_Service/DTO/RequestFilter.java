@@ -0,0 +1,6 @@
+package com.Sentinel.Reimbursement_Service.DTO;
+
+import java.time.LocalDate;
+
+// every field is optional, from and to bound the expense date and are inclusive
+public record RequestFilter(String employeeId, FraudLevel fraudLevel, Status status, LocalDate from, LocalDate to) {}
@@ -0,0 +1,16 @@
+package com.Sentinel.Reimbursement_Service.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// nextCursor is null on the last page
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RequestPage {
+    private List<AdminReimbursementDTO> items;
+    private String nextCursor;
+}
@@ -2,10 +2,14 @@ package com.Sentinel.Reimbursement_Service.DTO;
 
 import lombok.Data;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 @Data
 public class ResponseDTO {
     private int fraudScore;
     private StringBuilder description = new StringBuilder();
+    private Map<String, Long> checkTimings = new LinkedHashMap<>();
 
     public void addScore(int score) {
         this.fraudScore += score;
@@ -15,6 +19,16 @@ public class ResponseDTO {
         this.description.append(reason).append(" | ");
     }
 
+    public void addTiming(String check, long millis) {
+        this.checkTimings.put(check, millis);
+    }
+
+    public void merge(ResponseDTO other) {
+        this.fraudScore += other.fraudScore;
+        this.description.append(other.description);
+        this.checkTimings.putAll(other.checkTimings);
+    }
+
     public String getFinalDescription() {
         return description.toString();
     }
@@ -1,5 +1,5 @@
 package com.Sentinel.Reimbursement_Service.DTO;
 
 public enum Status {
-    PENDING, COMPLETED
+    PENDING, UPLOADED, OCR_COMPLETED, EXTRACTED, COMPLETED, FAILED
 }
@@ -0,0 +1,27 @@
+package com.Sentinel.Reimbursement_Service.Entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// running total of the request_history amounts per employee and expense date, maintained by SpendLedger
+@Data
+@Entity
+@AllArgsConstructor
+@NoArgsConstructor
+public class DailySpend {
+
+    @EmbeddedId
+    private DailySpendKey id;
+
+    @Column(nullable = false)
+    private double total;
+
+    @Column(nullable = false)
+    private long entries;
+
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,23 @@
+package com.Sentinel.Reimbursement_Service.Entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+@Data
+@Embeddable
+@AllArgsConstructor
+@NoArgsConstructor
+public class DailySpendKey implements Serializable {
+
+    @Column(nullable = false)
+    private String employeeId;
+
+    @Column(nullable = false)
+    private LocalDate expenseDate;
+}
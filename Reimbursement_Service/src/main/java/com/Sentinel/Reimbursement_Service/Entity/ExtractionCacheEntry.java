@@ -0,0 +1,35 @@
+package com.Sentinel.Reimbursement_Service.Entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Entity
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(indexes = {
+        @Index(name = "idx_ec_created", columnList = "createdAt"),
+        @Index(name = "idx_ec_accessed", columnList = "lastAccessedAt")
+})
+public class ExtractionCacheEntry {
+
+    // hex SHA-256 of the receipt bytes
+    @Id
+    @Column(length = 64)
+    private String id;
+
+    // key into ocr_text, the same row the request keeps
+    @Column(length = 64, nullable = false)
+    private String ocrTextHash;
+
+    @Column(columnDefinition = "TEXT", nullable = false)
+    private String extractedData;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+    private LocalDateTime lastAccessedAt;
+}
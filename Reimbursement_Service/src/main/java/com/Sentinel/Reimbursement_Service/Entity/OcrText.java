@@ -0,0 +1,29 @@
+package com.Sentinel.Reimbursement_Service.Entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// deflated OCR output, one row per distinct text however many requests share it
+@Data
+@Entity
+@AllArgsConstructor
+@NoArgsConstructor
+public class OcrText {
+
+    // hex SHA-256 of the UTF-8 text
+    @Id
+    @Column(length = 64)
+    private String id;
+
+    @Column(columnDefinition = "bytea", nullable = false)
+    private byte[] compressed;
+
+    private int originalLength;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
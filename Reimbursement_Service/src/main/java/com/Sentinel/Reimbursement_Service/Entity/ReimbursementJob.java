@@ -0,0 +1,52 @@
+package com.Sentinel.Reimbursement_Service.Entity;
+
+import com.Sentinel.Reimbursement_Service.DTO.JobState;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+@Data
+@Entity
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(indexes = {
+        @Index(name = "idx_job_state_next", columnList = "state, nextAttemptAt"),
+        @Index(name = "idx_job_requestId", columnList = "reimbursementRequestId", unique = true)
+})
+public class ReimbursementJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private String id;
+
+    @Column(nullable = false)
+    private String reimbursementRequestId;
+
+    // the receipt is kept until the job is done so a restarted pod can pick the job up again
+    @Column(columnDefinition = "bytea")
+    private byte[] receipt;
+    private String receiptName;
+    private String receiptContentType;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private JobState state;
+
+    private int attempts;
+    private LocalDateTime nextAttemptAt;
+    private LocalDateTime lockedUntil;
+    private String lockedBy;
+
+    @Column(columnDefinition = "TEXT")
+    private String lastError;
+
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+    @UpdateTimestamp
+    private LocalDateTime updatedAt;
+}
@@ -14,7 +14,13 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "ReimbursementRequest")
+// each listing filter gets (filter, createdAt, id) so its keyset pages are a range scan in index order
+@Table(name = "ReimbursementRequest", indexes = {
+        @Index(name = "idx_rr_created", columnList = "createdAt, id"),
+        @Index(name = "idx_rr_emp_created", columnList = "employeeId, createdAt, id"),
+        @Index(name = "idx_rr_status_created", columnList = "status, createdAt, id"),
+        @Index(name = "idx_rr_level_created", columnList = "fraudLevel, createdAt, id")
+})
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -46,8 +52,9 @@ public class ReimbursementRequest {
 
     private String receiptURL;
 
-    @Column(columnDefinition = "TEXT")
-    private String ocrData;
+    // key into ocr_text, the text itself is read through OcrTextStore only where it is needed
+    @Column(length = 64)
+    private String ocrTextHash;
 
     private int fraudScore;
 
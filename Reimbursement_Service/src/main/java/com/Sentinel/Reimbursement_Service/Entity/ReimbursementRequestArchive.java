@@ -0,0 +1,66 @@
+package com.Sentinel.Reimbursement_Service.Entity;
+
+import com.Sentinel.Reimbursement_Service.DTO.FraudLevel;
+import com.Sentinel.Reimbursement_Service.DTO.Payment;
+import com.Sentinel.Reimbursement_Service.DTO.Status;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// finished requests moved out of the hot table by RequestArchiver, same columns plus the time of the move
+@Entity
+@Table(name = "ReimbursementRequestArchive", indexes = {
+        @Index(name = "idx_rra_emp_created", columnList = "employeeId, createdAt")
+})
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReimbursementRequestArchive {
+
+    @Id
+    private String id;
+
+    @Column(nullable = false)
+    private String employeeId;
+
+    @Column(nullable = false)
+    private Double amount;
+
+    @Column(nullable = false)
+    private LocalDate expenseDate;
+
+    @Column(nullable = false)
+    private String vendorName;
+
+    @Column(nullable = false)
+    private String category;
+
+    private String description;
+
+    @Enumerated(EnumType.STRING)
+    private Payment paymentMode;
+
+    private String receiptURL;
+
+    @Column(length = 64)
+    private String ocrTextHash;
+
+    private int fraudScore;
+
+    @Enumerated(EnumType.STRING)
+    private FraudLevel fraudLevel;
+
+    @Enumerated(EnumType.STRING)
+    private Status status;
+
+    @Column(columnDefinition = "TEXT")
+    private String fraudDescription;
+
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private LocalDateTime archivedAt;
+}
@@ -20,7 +20,8 @@ import java.time.LocalDateTime;
         @Index(name = "idx_rh_emp_date", columnList = "employeeId, expenseDate"),
         @Index(name = "idx_rh_phash", columnList = "imagePhash"),
         @Index(name = "idx_rh_hash", columnList = "textHash"),
-        @Index(name = "idx_rh_requestId", columnList = "reimbursementRequestId")
+        @Index(name = "idx_rh_requestId", columnList = "reimbursementRequestId"),
+        @Index(name = "idx_rh_created", columnList = "createdAt")
 })
 public class RequestHistory {
 
@@ -0,0 +1,25 @@
+package com.Sentinel.Reimbursement_Service.FraudDetectionEngine;
+
+import com.Sentinel.Reimbursement_Service.Service.ReceiptBuffer;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * Per-submission state shared by the fraud engine and the history writer so the receipt is decoded
+ * and hashed only once. Each derived value is filled in by a single check and only read by the caller
+ * after that check has been joined, so no extra synchronization is needed.
+ */
+@Getter
+@Setter
+@RequiredArgsConstructor
+public class FraudContext {
+    private final ReceiptBuffer receipt;
+    private final String ocrText;
+
+    private BufferedImage image;
+    private Long imagePhash;
+    private Long textHash;
+}
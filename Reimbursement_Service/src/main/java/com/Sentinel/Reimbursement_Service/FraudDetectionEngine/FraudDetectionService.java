@@ -1,36 +1,145 @@
 package com.Sentinel.Reimbursement_Service.FraudDetectionEngine;
 
+import com.Sentinel.Reimbursement_Service.Configuration.RequestDeadline;
 import com.Sentinel.Reimbursement_Service.DTO.OCRdata;
 import com.Sentinel.Reimbursement_Service.DTO.ResponseDTO;
 import com.Sentinel.Reimbursement_Service.Entity.ReimbursementRequest;
-import com.Sentinel.Reimbursement_Service.Entity.RequestHistory;
+import com.Sentinel.Reimbursement_Service.FraudDetectionEngine.HammingIndex.HammingMatch;
 import com.Sentinel.Reimbursement_Service.Repository.ReimbursementHistoryRepo;
 import com.Sentinel.Reimbursement_Service.Service.EmployeePolicyService;
+import com.Sentinel.Reimbursement_Service.Service.SpendLedger;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
 
 @Service
+@Slf4j
 @RequiredArgsConstructor
 public class FraudDetectionService {
 
     private final PerceptualHashService pHashService;
     private final TextHashService textHashService;
     private final ReimbursementHistoryRepo historyRepo;
+    private final HashIndexService hashIndexService;
     private final EmployeePolicyService policyService;
+    private final SpendLedger spendLedger;
+    private final ExecutorService fraudCheckExecutor;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${fraud.engine.concurrent:true}")
+    private boolean concurrent;
+
+    @Value("${fraud.engine.check-timeout-ms:10000}")
+    private long checkTimeoutMs;
+
+    @Value("${fraud.history.bloom.enabled:true}")
+    private boolean historyPrefilter;
 
-    public ResponseDTO runEngine(ReimbursementRequest originalRequest, OCRdata extractedData, String ocrResult, MultipartFile file) {
+    @PostConstruct
+    public void init() {
+        meterRegistry.gauge("fraud.history.bloom.expected.fpp", hashIndexService, HashIndexService::vendorDateFalsePositiveRate);
+    }
+
+    public ResponseDTO runEngine(ReimbursementRequest originalRequest, OCRdata extractedData, FraudContext context) {
+        List<FraudCheck> checks = List.of(
+                new FraudCheck("validate", false, r -> validate(originalRequest, extractedData, r)),
+                new FraudCheck("history", true, r -> verifyAcrossHistory(originalRequest, r)),
+                new FraudCheck("phash", false, r -> matchingPhash(context, r)),
+                new FraudCheck("textHash", false, r -> matchingTextHash(context, r)),
+                new FraudCheck("policy", true, r -> checkPolicyViolation(originalRequest, r))
+        );
+
+        ResponseDTO response = concurrent ? runConcurrently(checks) : runSequentially(checks);
+        log.info("fraud checks finished in {}", response.getCheckTimings());
+        return response;
+    }
+
+    private ResponseDTO runSequentially(List<FraudCheck> checks) {
         ResponseDTO response = new ResponseDTO();
+        for (FraudCheck check : checks) {
+            check.runInto(response);
+        }
+        return response;
+    }
 
-        validate(originalRequest, extractedData, response);
-        verifyAcrossHistory(originalRequest, response);
-        matchingPhash(file, response);
-        matchingTextHash(ocrResult, response);
-        checkPolicyViolation(originalRequest, response);
+    // every check writes into its own ResponseDTO, the partial results are merged in declaration order
+    // so the score and the order of the reasons do not depend on which check finishes first.
+    // Checks that query the database run on the calling thread, inside the caller's transaction and on its
+    // connection; a pool thread would need a second connection while the caller holds the first
+    private ResponseDTO runConcurrently(List<FraudCheck> checks) {
+        List<Future<ResponseDTO>> futures = new ArrayList<>();
+        for (FraudCheck check : checks) {
+            futures.add(check.database() ? null : fraudCheckExecutor.submit(RequestDeadline.propagate(() -> {
+                ResponseDTO partial = new ResponseDTO();
+                check.runInto(partial);
+                return partial;
+            })));
+        }
+        List<ResponseDTO> inline = new ArrayList<>();
+        try {
+            for (FraudCheck check : checks) {
+                ResponseDTO partial = null;
+                if (check.database()) {
+                    partial = new ResponseDTO();
+                    check.runInto(partial);
+                }
+                inline.add(partial);
+            }
+        } catch (RuntimeException e) {
+            futures.forEach(future -> {
+                if (future != null) future.cancel(true);
+            });
+            throw e;
+        }
 
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(checkTimeoutMs);
+        ResponseDTO response = new ResponseDTO();
+        try {
+            for (int i = 0; i < checks.size(); i++) {
+                String name = checks.get(i).name();
+                if (futures.get(i) == null) {
+                    response.merge(inline.get(i));
+                    continue;
+                }
+                try {
+                    response.merge(futures.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+                } catch (TimeoutException e) {
+                    throw new RuntimeException("Fraud check " + name + " timed out after " + checkTimeoutMs + " ms");
+                } catch (ExecutionException e) {
+                    throw new RuntimeException("Fraud check " + name + " failed: " + e.getCause().getMessage(), e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Interrupted while waiting for fraud check " + name, e);
+                }
+            }
+        } finally {
+            for (Future<ResponseDTO> future : futures) {
+                if (future != null) future.cancel(true);
+            }
+        }
         return response;
     }
 
+    private record FraudCheck(String name, boolean database, Consumer<ResponseDTO> body) {
+        void runInto(ResponseDTO response) {
+            long start = System.nanoTime();
+            body.accept(response);
+            response.addTiming(name, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+    }
+
     // max 20
     public void validate(ReimbursementRequest original, OCRdata ocr, ResponseDTO response) {
 
@@ -60,12 +169,20 @@ public class FraudDetectionService {
     }
 
     // max 35
+    // fraud.history.prefilter{outcome}: skipped never reached the DB, false_positive passed the Bloom filter but
+    // matched nothing, so skipped / total is the skip rate and false_positive / (false_positive + skipped) the FP rate
     public void verifyAcrossHistory(ReimbursementRequest originalRequest, ResponseDTO response) {
-        boolean sameVendorDate =
-                historyRepo.existsByVendorNameAndExpenseDate(originalRequest.getVendorName(), originalRequest.getExpenseDate());
+        if (historyPrefilter && !hashIndexService.mightHaveVendorDate(originalRequest.getVendorName(), originalRequest.getExpenseDate())) {
+            meterRegistry.counter("fraud.history.prefilter", "outcome", "skipped").increment();
+            return;
+        }
 
-        boolean sameVendorDateAmount =
-                historyRepo.existsByVendorNameAndExpenseDateAndAmount(originalRequest.getVendorName(), originalRequest.getExpenseDate(), originalRequest.getAmount());
+        Boolean match = historyRepo.findDuplicateMatch(originalRequest.getVendorName(), originalRequest.getExpenseDate(), originalRequest.getAmount());
+        if (historyPrefilter) {
+            meterRegistry.counter("fraud.history.prefilter", "outcome", match == null ? "false_positive" : "match").increment();
+        }
+        boolean sameVendorDate = match != null;
+        boolean sameVendorDateAmount = Boolean.TRUE.equals(match);
 
         if (sameVendorDateAmount) {
             response.addScore(35);
@@ -78,49 +195,41 @@ public class FraudDetectionService {
     }
 
     // max 25
-    public void matchingPhash(MultipartFile file, ResponseDTO response) {
-        long newHash = pHashService.generatePhash(file);
-        int best = Integer.MAX_VALUE;
-        for (Long oldHash : historyRepo.findAllImagePhashes()) {
-            int distance = pHashService.hammingDistance(newHash, oldHash);
-            best = Math.min(distance, best);
-        }
-        if(best <= 5) {
+    public void matchingPhash(FraudContext context, ResponseDTO response) {
+        long newHash = pHashService.generatePhash(context);
+        HammingMatch match = hashIndexService.nearestImage(newHash);
+        if(match.distance() <= 5) {
             response.addScore(25);
-            response.addReason("Duplicate receipt image");
+            response.addReason("Duplicate receipt image" + cite(match));
         }
-        else if(best <= 10) {
+        else if(match.distance() <= 10) {
             response.addScore(15);
-            response.addReason("Similar receipt image");
+            response.addReason("Similar receipt image" + cite(match));
         }
     }
 
     // max 20
-    public void matchingTextHash(String ocrResult, ResponseDTO response) {
-        int best = Integer.MAX_VALUE;
-        long newHash = textHashService.generateHash(ocrResult);
-
-        for (Long oldHash : historyRepo.findAllTextHashes()) {
-            int distance = textHashService.hammingDistance(newHash, oldHash);
-            best = Math.min(best, distance);
-        }
-        if(best <= 5) {
+    public void matchingTextHash(FraudContext context, ResponseDTO response) {
+        long newHash = textHashService.generateHash(context);
+        HammingMatch match = hashIndexService.nearestText(newHash);
+        if(match.distance() <= 5) {
             response.addScore(20);
-            response.addReason("Duplicate invoice text");
+            response.addReason("Duplicate invoice text" + cite(match));
         }
-        else if (best <= 10) {
+        else if (match.distance() <= 10) {
             response.addScore(10);
-            response.addReason("Similar invoice text");
+            response.addReason("Similar invoice text" + cite(match));
         }
     }
 
+    private String cite(HammingMatch match) {
+        return " (history: " + String.join(", ", match.ids().subList(0, Math.min(3, match.ids().size()))) + ")";
+    }
+
     // max 25
     public void checkPolicyViolation(ReimbursementRequest request, ResponseDTO response) {
         Double limit = policyService.getPolicyLimitOfUser(request.getEmployeeId());
-        double curSpending = 0;
-        for(RequestHistory history : historyRepo.findByEmployeeIdAndExpenseDate(request.getEmployeeId(), request.getExpenseDate())) {
-            curSpending += history.getAmount();
-        }
+        double curSpending = spendLedger.dailyTotal(request.getEmployeeId(), request.getExpenseDate());
         curSpending += request.getAmount();
 
         if(curSpending > limit) {
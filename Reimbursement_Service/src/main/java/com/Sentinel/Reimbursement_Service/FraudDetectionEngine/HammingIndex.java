@@ -0,0 +1,148 @@
+package com.Sentinel.Reimbursement_Service.FraudDetectionEngine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Multi-index hashing over 64-bit hashes. Each hash is split into four 16-bit blocks and every block
+ * gets its own bucket table. If two hashes are within distance r, at least one block is within r / 4,
+ * so a query only has to probe the buckets near each of its own blocks instead of scanning everything.
+ */
+public class HammingIndex {
+
+    private static final int BLOCKS = 4;
+    private static final int BLOCK_BITS = 16;
+    private static final int BUCKETS = 1 << BLOCK_BITS;
+
+    private final int maxRadius;
+    private final int[] probeMasks;
+
+    private final int[][][] buckets = new int[BLOCKS][BUCKETS][];
+    private final int[][] bucketSizes = new int[BLOCKS][BUCKETS];
+
+    private long[] hashes = new long[1024];
+    private String[] ids = new String[1024];
+    private int size;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public HammingIndex(int maxRadius) {
+        this.maxRadius = maxRadius;
+        this.probeMasks = masksUpTo(maxRadius / BLOCKS);
+    }
+
+    public void add(String id, long hash) {
+        lock.writeLock().lock();
+        try {
+            if (size == hashes.length) {
+                hashes = Arrays.copyOf(hashes, size * 2);
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            hashes[size] = hash;
+            ids[size] = id;
+            for (int b = 0; b < BLOCKS; b++) {
+                int key = block(hash, b);
+                int[] bucket = buckets[b][key];
+                int count = bucketSizes[b][key];
+                if (bucket == null) {
+                    bucket = new int[2];
+                } else if (count == bucket.length) {
+                    bucket = Arrays.copyOf(bucket, count * 2);
+                }
+                bucket[count] = size;
+                buckets[b][key] = bucket;
+                bucketSizes[b][key] = count + 1;
+            }
+            size++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the smallest distance to any indexed hash together with every id stored at that distance,
+     * or {@link HammingMatch#NONE} when nothing lies within {@code maxDistance}.
+     */
+    public HammingMatch nearest(long hash, int maxDistance) {
+        if (maxDistance > maxRadius) {
+            throw new IllegalArgumentException("Index supports distances up to " + maxRadius);
+        }
+        lock.readLock().lock();
+        try {
+            int best = maxDistance;
+            int[] found = new int[8];
+            int foundCount = 0;
+
+            for (int b = 0; b < BLOCKS; b++) {
+                int key = block(hash, b);
+                for (int mask : probeMasks) {
+                    int probe = key ^ mask;
+                    int[] bucket = buckets[b][probe];
+                    if (bucket == null) continue;
+                    int count = bucketSizes[b][probe];
+                    for (int i = 0; i < count; i++) {
+                        int idx = bucket[i];
+                        int distance = Long.bitCount(hash ^ hashes[idx]);
+                        if (distance > best) continue;
+                        if (distance < best) {
+                            best = distance;
+                            foundCount = 0;
+                        }
+                        if (foundCount == found.length) {
+                            found = Arrays.copyOf(found, foundCount * 2);
+                        }
+                        found[foundCount++] = idx;
+                    }
+                }
+            }
+
+            if (foundCount == 0) {
+                return HammingMatch.NONE;
+            }
+
+            // the same entry can be reached through more than one block
+            Arrays.sort(found, 0, foundCount);
+            List<String> matches = new ArrayList<>();
+            for (int i = 0; i < foundCount; i++) {
+                if (i > 0 && found[i] == found[i - 1]) continue;
+                matches.add(ids[found[i]]);
+            }
+            return new HammingMatch(best, matches);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static int block(long hash, int b) {
+        return (int) (hash >>> (b * BLOCK_BITS)) & (BUCKETS - 1);
+    }
+
+    private static int[] masksUpTo(int radius) {
+        List<Integer> masks = new ArrayList<>();
+        for (int mask = 0; mask < BUCKETS; mask++) {
+            if (Integer.bitCount(mask) <= radius) {
+                masks.add(mask);
+            }
+        }
+        return masks.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    public record HammingMatch(int distance, List<String> ids) {
+        public static final HammingMatch NONE = new HammingMatch(Integer.MAX_VALUE, List.of());
+
+        public boolean found() {
+            return distance != Integer.MAX_VALUE;
+        }
+    }
+}
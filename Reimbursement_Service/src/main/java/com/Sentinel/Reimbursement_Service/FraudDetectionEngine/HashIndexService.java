@@ -0,0 +1,174 @@
+package com.Sentinel.Reimbursement_Service.FraudDetectionEngine;
+
+import com.Sentinel.Reimbursement_Service.DTO.HistoryHashView;
+import com.Sentinel.Reimbursement_Service.Entity.RequestHistory;
+import com.Sentinel.Reimbursement_Service.FraudDetectionEngine.HammingIndex.HammingMatch;
+import com.Sentinel.Reimbursement_Service.Repository.ReimbursementHistoryRepo;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class HashIndexService {
+
+    public static final int MAX_DISTANCE = 10;
+
+    private final ReimbursementHistoryRepo historyRepo;
+
+    @Value("${fraud.history.bloom.expected-entries:1000000}")
+    private long bloomExpectedEntries;
+
+    @Value("${fraud.history.bloom.false-positive-rate:0.01}")
+    private double bloomFalsePositiveRate;
+
+    // how far back each refresh looks again: covers clock skew between pods and transactions that commit late
+    @Value("${fraud.index.refresh-overlap-seconds:300}")
+    private long refreshOverlapSeconds;
+
+    // null until load() ran, every vendor/date then counts as possibly present
+    private volatile Snapshot snapshot;
+
+    /**
+     * Builds the indexes from the whole history table. Runs at startup and again every fraud.index.rebuild-ms,
+     * which also picks up rows that were restored or backfilled with an old createdAt.
+     */
+    @PostConstruct
+    @Scheduled(initialDelayString = "${fraud.index.rebuild-ms:86400000}", fixedDelayString = "${fraud.index.rebuild-ms:86400000}")
+    public void load() {
+        long start = System.currentTimeMillis();
+        LocalDateTime scanStart = LocalDateTime.now();
+        List<HistoryHashView> views = historyRepo.findAllHashes();
+        // sized for twice the current history so the false positive rate holds until the next rebuild
+        BloomFilter filter = BloomFilter.create(Math.max(bloomExpectedEntries, 2L * views.size()), bloomFalsePositiveRate);
+        Snapshot fresh = new Snapshot(new HammingIndex(MAX_DISTANCE), new HammingIndex(MAX_DISTANCE), filter, scanStart);
+        LocalDateTime since = fresh.since(refreshOverlapSeconds);
+        for (HistoryHashView view : views) {
+            fresh.add(view.getId(), view.getImagePhash(), view.getTextHash(), view.getVendorName(), view.getExpenseDate());
+            if (view.getCreatedAt() != null && view.getCreatedAt().isAfter(since)) {
+                fresh.recent.put(view.getId(), view.getCreatedAt());
+            }
+        }
+        snapshot = fresh;
+        log.info("hash index loaded {} history entries in {} ms", fresh.imageIndex.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Adds history committed since the last look, by any pod. Rows within the overlap window are read again
+     * every time and skipped by id, so one that commits after a later row was already seen is not lost.
+     */
+    @Scheduled(initialDelayString = "${fraud.index.refresh-ms:10000}", fixedDelayString = "${fraud.index.refresh-ms:10000}")
+    public void refresh() {
+        Snapshot current = snapshot;
+        if (current == null) return;
+        LocalDateTime since = current.since(refreshOverlapSeconds);
+        int added = 0;
+        for (HistoryHashView view : historyRepo.findHashesCreatedAfter(since)) {
+            if (current.addIfAbsent(view.getId(), view.getCreatedAt(), view.getImagePhash(), view.getTextHash(),
+                    view.getVendorName(), view.getExpenseDate())) {
+                added++;
+            }
+        }
+        current.recent.values().removeIf(createdAt -> createdAt.isBefore(since));
+        if (added > 0) {
+            log.info("hash index picked up {} history entries committed elsewhere", added);
+        }
+    }
+
+    public HammingMatch nearestImage(long phash) {
+        Snapshot current = snapshot;
+        return current == null ? HammingMatch.NONE : current.imageIndex.nearest(phash, MAX_DISTANCE);
+    }
+
+    public HammingMatch nearestText(long textHash) {
+        Snapshot current = snapshot;
+        return current == null ? HammingMatch.NONE : current.textIndex.nearest(textHash, MAX_DISTANCE);
+    }
+
+    // false means no history entry has this vendor and date, true has to be confirmed against the table
+    public boolean mightHaveVendorDate(String vendorName, LocalDate expenseDate) {
+        Snapshot current = snapshot;
+        return current == null || current.filter.mightContain(vendorDateKey(vendorName, expenseDate));
+    }
+
+    public double vendorDateFalsePositiveRate() {
+        Snapshot current = snapshot;
+        return current == null ? 1.0 : current.filter.expectedFalsePositiveRate();
+    }
+
+    // only index once the history row is committed, otherwise a rolled back request would keep matching
+    public void indexAfterCommit(RequestHistory history) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            index(history);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                index(history);
+            }
+        });
+    }
+
+    private void index(RequestHistory history) {
+        Snapshot current = snapshot;
+        if (current == null) return;
+        LocalDateTime createdAt = history.getCreatedAt() == null ? LocalDateTime.now() : history.getCreatedAt();
+        current.addIfAbsent(history.getId(), createdAt, history.getImagePhash(), history.getTextHash(),
+                history.getVendorName(), history.getExpenseDate());
+    }
+
+    // looser than the exact match in the query, so the filter can only let through more than it should, never less
+    static String vendorDateKey(String vendorName, LocalDate expenseDate) {
+        String vendor = vendorName == null ? "" : vendorName.strip().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+        return vendor + '|' + expenseDate;
+    }
+
+    private static final class Snapshot {
+        private final HammingIndex imageIndex;
+        private final HammingIndex textIndex;
+        private final BloomFilter filter;
+        // ids indexed inside the refresh window, so a row seen by a refresh and by this pod's commit counts once
+        private final Map<String, LocalDateTime> recent = new ConcurrentHashMap<>();
+        private volatile LocalDateTime highWater;
+
+        Snapshot(HammingIndex imageIndex, HammingIndex textIndex, BloomFilter filter, LocalDateTime highWater) {
+            this.imageIndex = imageIndex;
+            this.textIndex = textIndex;
+            this.filter = filter;
+            this.highWater = highWater;
+        }
+
+        LocalDateTime since(long overlapSeconds) {
+            return highWater.minusSeconds(overlapSeconds);
+        }
+
+        boolean addIfAbsent(String id, LocalDateTime createdAt, long imagePhash, long textHash, String vendorName, LocalDate expenseDate) {
+            if (recent.putIfAbsent(id, createdAt) != null) return false;
+            add(id, imagePhash, textHash, vendorName, expenseDate);
+            if (createdAt.isAfter(highWater)) {
+                highWater = createdAt;
+            }
+            return true;
+        }
+
+        void add(String id, long imagePhash, long textHash, String vendorName, LocalDate expenseDate) {
+            imageIndex.add(id, imagePhash);
+            textIndex.add(id, textHash);
+            filter.add(vendorDateKey(vendorName, expenseDate));
+        }
+    }
+}
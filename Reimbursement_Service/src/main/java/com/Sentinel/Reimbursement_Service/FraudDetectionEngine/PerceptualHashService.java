@@ -2,8 +2,10 @@ package com.Sentinel.Reimbursement_Service.FraudDetectionEngine;
 
 import dev.brachtendorf.jimagehash.hash.Hash;
 import dev.brachtendorf.jimagehash.hashAlgorithms.PerceptiveHash;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
+import com.Sentinel.Reimbursement_Service.Service.ReceiptBuffer;
 
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
@@ -11,11 +13,42 @@ import java.io.InputStream;
 
 @Service
 public class PerceptualHashService {
+    // PerceptiveHash(64) scales every image to 32x32 before the DCT
+    private static final int HASH_GRID = 32;
+
     private final PerceptiveHash pHash = new PerceptiveHash(64);
 
-    public long generatePhash(MultipartFile file) {
-        try (InputStream inputStream = file.getInputStream()) {
-            BufferedImage image = ImageIO.read(inputStream);
+    @Value("${phash.decode.sampled:true}")
+    private boolean sampled;
+
+    @Value("${phash.decode.reader-pool-size:8}")
+    private int readerPoolSize;
+
+    private SampledImageDecoder sampledDecoder;
+
+    @PostConstruct
+    public void init() {
+        if (sampled) {
+            sampledDecoder = new SampledImageDecoder(HASH_GRID, readerPoolSize);
+        }
+    }
+
+    public long generatePhash(ReceiptBuffer receipt) {
+        return generatePhash(decode(receipt));
+    }
+
+    public long generatePhash(FraudContext context) {
+        if (context.getImagePhash() == null) {
+            if (context.getImage() == null) {
+                context.setImage(decode(context.getReceipt()));
+            }
+            context.setImagePhash(generatePhash(context.getImage()));
+        }
+        return context.getImagePhash();
+    }
+
+    public long generatePhash(BufferedImage image) {
+        try {
             Hash hash = pHash.hash(image);
             return hash.getHashValue().longValue();
         } catch (Exception e) {
@@ -23,6 +56,19 @@ public class PerceptualHashService {
         }
     }
 
+    // with the sampled decoder on, this is only the 32x32 pixels the hash reads rather than the whole image
+    public BufferedImage decode(ReceiptBuffer receipt) {
+        try (InputStream inputStream = receipt.inputStream()) {
+            BufferedImage image = sampledDecoder != null ? sampledDecoder.decode(inputStream) : ImageIO.read(inputStream);
+            if (image == null) {
+                throw new RuntimeException("Unsupported receipt image format");
+            }
+            return image;
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to generate perceptual hash", e);
+        }
+    }
+
 
     public int hammingDistance(long h1, long h2) {
         return Long.bitCount(h1 ^ h2);
@@ -6,83 +6,147 @@ import org.springframework.stereotype.Service;
 public class TextHashService {
 
     private static final int HASH_BITS = 64;
+    private static final long FNV_64_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_64_PRIME = 0x100000001b3L;
 
+    private static final char SEPARATOR = ' ';
+
+    // what every ASCII char becomes after toLowerCase() and the [^a-z0-9. ] filter, built with the
+    // default locale so the result matches String.toLowerCase() (e.g. 'I' is dropped under tr)
+    private static final char[] ASCII_MAP = new char[128];
+
+    static {
+        for (char c = 0; c < 128; c++) {
+            String lower = String.valueOf(c).toLowerCase();
+            ASCII_MAP[c] = lower.length() == 1 ? keep(lower.charAt(0)) : SEPARATOR;
+        }
+    }
+
+    /**
+     * Single pass SimHash over the raw OCR text. Lower-casing, the [a-z0-9.] filter, tokenizing, weighting and
+     * FNV-1a all happen char by char, so no normalized copy, token strings or regex matchers are created.
+     * Produces the same hash as the previous regex based normalize/split/matches implementation.
+     */
     public long generateHash(String ocrResult) {
         if (ocrResult == null || ocrResult.isBlank()) {
             return 0L;
         }
 
-        String normalized = normalize(ocrResult);
-
-        String[] tokens = normalized.split("\\s+");
-
-        int[] bitVector = new int[HASH_BITS];
-
-        for (String token : tokens) {
-            if (token.length() < 2) continue;
-
-            long hash = hashToken(token);
-
-            int weight = getTokenWeight(token);
-
-            for (int i = 0; i < HASH_BITS; i++) {
-                if (((hash >> i) & 1) == 1) {
-                    bitVector[i] += weight;
-                } else {
-                    bitVector[i] -= weight;
-                }
+        SimHashAccumulator accumulator = new SimHashAccumulator();
+        int length = ocrResult.length();
+        for (int i = 0; i < length; i++) {
+            char c = ocrResult.charAt(i);
+            if (c < 128) {
+                accumulator.accept(ASCII_MAP[c]);
+                continue;
             }
-        }
-
-        long simHash = 0L;
-        for (int i = 0; i < HASH_BITS; i++) {
-            if (bitVector[i] > 0) {
-                simHash |= (1L << i);
+            // rare path: a few non-ASCII chars lower-case into ASCII letters (KELVIN SIGN -> k, I WITH DOT -> i)
+            int codePoint = ocrResult.codePointAt(i);
+            String lower = Character.toString(codePoint).toLowerCase();
+            for (int j = 0; j < lower.length(); j++) {
+                char l = lower.charAt(j);
+                accumulator.accept(l < 128 ? keep(l) : SEPARATOR);
             }
+            i += Character.charCount(codePoint) - 1;
         }
+        accumulator.accept(SEPARATOR);
 
-        return simHash;
+        return accumulator.simHash();
     }
 
-    private String normalize(String text) {
-        return text
-                .toLowerCase()
-                .replaceAll("[^a-z0-9. ]", " ")
-                .replaceAll("\\s+", " ")
-                .trim();
+    public long generateHash(FraudContext context) {
+        if (context.getTextHash() == null) {
+            context.setTextHash(generateHash(context.getOcrText()));
+        }
+        return context.getTextHash();
     }
 
-    private long hashToken(String token) {
-        final long FNV_64_PRIME = 0x100000001b3L;
-        long hash = 0xcbf29ce484222325L;
+    private static char keep(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '.' ? c : SEPARATOR;
+    }
 
-        for (int i = 0; i < token.length(); i++) {
-            hash ^= token.charAt(i);
+    private static final class SimHashAccumulator {
+        private final int[] bitVector = new int[HASH_BITS];
+
+        private long hash;
+        private int length;
+        private boolean letters;
+        private boolean amount;
+        private boolean dot;
+        private int digitsBeforeDot;
+        private int digitsAfterDot;
+
+        void accept(char c) {
+            if (c == SEPARATOR) {
+                endToken();
+                return;
+            }
+            if (length == 0) {
+                hash = FNV_64_OFFSET;
+                letters = true;
+                amount = true;
+                dot = false;
+                digitsBeforeDot = 0;
+                digitsAfterDot = 0;
+            }
+            hash ^= c;
             hash *= FNV_64_PRIME;
+            length++;
+
+            if (c < 'a' || c > 'z') {
+                letters = false;
+            }
+            if (c == '.') {
+                if (dot || digitsBeforeDot == 0) amount = false;
+                dot = true;
+            } else if (c >= '0' && c <= '9') {
+                if (dot) digitsAfterDot++;
+                else digitsBeforeDot++;
+            } else {
+                amount = false;
+            }
         }
 
-        return hash;
-    }
+        private void endToken() {
+            if (length >= 2) {
+                int weight = weight();
+                for (int i = 0; i < HASH_BITS; i++) {
+                    if (((hash >> i) & 1) == 1) {
+                        bitVector[i] += weight;
+                    } else {
+                        bitVector[i] -= weight;
+                    }
+                }
+            }
+            length = 0;
+        }
 
-    private int getTokenWeight(String token) {
+        private int weight() {
+            // Amount-like tokens: \d+\.\d{2}
+            if (amount && dot && digitsAfterDot == 2) {
+                return 5;
+            }
 
-        // Amount-like tokens
-        if (token.matches("\\d+\\.\\d{2}")) {
-            return 5;
-        }
+            // Date-like tokens (dd/mm/yyyy, yyyy-mm-dd) would weigh 4, but '/' and '-' never survive the
+            // [a-z0-9.] filter, so such tokens are split up before they get here, exactly as before.
 
-        // Date-like tokens
-        if (token.matches("\\d{2}/\\d{2}/\\d{4}") ||
-                token.matches("\\d{4}-\\d{2}-\\d{2}")) {
-            return 4;
-        }
+            // Merchant words (heuristic)
+            if (letters && length > 4) {
+                return 2;
+            }
 
-        // Merchant words (heuristic)
-        if (token.length() > 4 && token.matches("[a-z]+")) {
-            return 2;
+            return 1;
         }
 
-        return 1;
+        long simHash() {
+            long simHash = 0L;
+            for (int i = 0; i < HASH_BITS; i++) {
+                if (bitVector[i] > 0) {
+                    simHash |= (1L << i);
+                }
+            }
+            return simHash;
+        }
     }
 
     public int hammingDistance(long h1, long h2) {
@@ -0,0 +1,66 @@
+package com.Sentinel.Reimbursement_Service.Repository;
+
+import com.Sentinel.Reimbursement_Service.Entity.DailySpend;
+import com.Sentinel.Reimbursement_Service.Entity.DailySpendKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+@Repository
+public interface DailySpendRepo extends JpaRepository<DailySpend, DailySpendKey> {
+
+    // joins the caller's transaction, so the ledger and request_history commit or roll back together
+    @Modifying
+    @Query(value = """
+            INSERT INTO daily_spend (employee_id, expense_date, total, entries, updated_at)
+            VALUES (:employeeId, :expenseDate, :amount, 1, now())
+            ON CONFLICT (employee_id, expense_date) DO UPDATE
+            SET total = daily_spend.total + EXCLUDED.total,
+                entries = daily_spend.entries + 1,
+                updated_at = now()
+            """, nativeQuery = true)
+    int add(String employeeId, LocalDate expenseDate, double amount);
+
+    @Query("SELECT d.total FROM DailySpend d WHERE d.id.employeeId = :employeeId AND d.id.expenseDate = :expenseDate")
+    Optional<Double> findTotal(String employeeId, LocalDate expenseDate);
+
+    // holds off concurrent add() calls for the rest of the reconcile transaction, readers are not blocked
+    @Modifying
+    @Query(value = "LOCK TABLE daily_spend IN SHARE ROW EXCLUSIVE MODE", nativeQuery = true)
+    void lockForReconcile();
+
+    @Query(value = """
+            SELECT count(*) FROM (
+                SELECT employee_id, expense_date, sum(amount) AS total, count(*) AS entries
+                FROM request_history GROUP BY employee_id, expense_date
+            ) h
+            FULL OUTER JOIN daily_spend d USING (employee_id, expense_date)
+            WHERE abs(coalesce(h.total, 0) - coalesce(d.total, 0)) > 0.005
+               OR coalesce(h.entries, 0) <> coalesce(d.entries, 0)
+            """, nativeQuery = true)
+    long countDrift();
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO daily_spend (employee_id, expense_date, total, entries, updated_at)
+            SELECT employee_id, expense_date, sum(amount), count(*), now()
+            FROM request_history GROUP BY employee_id, expense_date
+            ON CONFLICT (employee_id, expense_date) DO UPDATE
+            SET total = EXCLUDED.total, entries = EXCLUDED.entries, updated_at = now()
+            WHERE abs(daily_spend.total - EXCLUDED.total) > 0.005 OR daily_spend.entries <> EXCLUDED.entries
+            """, nativeQuery = true)
+    int rebuildFromHistory();
+
+    @Modifying
+    @Query(value = """
+            DELETE FROM daily_spend d WHERE NOT EXISTS (
+                SELECT 1 FROM request_history r
+                WHERE r.employee_id = d.employee_id AND r.expense_date = d.expense_date
+            )
+            """, nativeQuery = true)
+    int deleteOrphans();
+}
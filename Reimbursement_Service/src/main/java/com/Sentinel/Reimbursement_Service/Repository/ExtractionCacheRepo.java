@@ -0,0 +1,36 @@
+package com.Sentinel.Reimbursement_Service.Repository;
+
+import com.Sentinel.Reimbursement_Service.Entity.ExtractionCacheEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface ExtractionCacheRepo extends JpaRepository<ExtractionCacheEntry, String> {
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE ExtractionCacheEntry e SET e.lastAccessedAt = :now WHERE e.id = :id")
+    int touch(String id, LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ExtractionCacheEntry e WHERE e.createdAt < :cutoff")
+    int deleteExpired(LocalDateTime cutoff);
+
+    // keeps the maxEntries most recently used entries
+    @Modifying
+    @Transactional
+    @Query(value = """
+            DELETE FROM extraction_cache_entry WHERE id IN (
+                SELECT id FROM extraction_cache_entry
+                ORDER BY last_accessed_at DESC
+                OFFSET :maxEntries
+            )
+            """, nativeQuery = true)
+    int trimTo(int maxEntries);
+}
@@ -0,0 +1,23 @@
+package com.Sentinel.Reimbursement_Service.Repository;
+
+import com.Sentinel.Reimbursement_Service.Entity.OcrText;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface OcrTextRepo extends JpaRepository<OcrText, String> {
+
+    // saving a text that is already stored moves its created_at forward, keeping it out of reach of archiving
+    // until the request about to reference it has committed; the row lock makes a concurrent archive delete
+    // wait and re-check. True when the row is new
+    @Transactional
+    @Query(value = """
+            INSERT INTO ocr_text (id, compressed, original_length, created_at)
+            VALUES (:id, :compressed, :originalLength, now())
+            ON CONFLICT (id) DO UPDATE SET created_at = now()
+            RETURNING xmax = 0
+            """, nativeQuery = true)
+    boolean upsert(String id, byte[] compressed, int originalLength);
+}
@@ -0,0 +1,9 @@
+package com.Sentinel.Reimbursement_Service.Repository;
+
+import com.Sentinel.Reimbursement_Service.Entity.ReimbursementRequestArchive;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ReimbursementArchiveRepo extends JpaRepository<ReimbursementRequestArchive, String> {
+}
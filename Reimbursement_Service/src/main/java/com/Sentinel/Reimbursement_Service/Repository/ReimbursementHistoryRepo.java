@@ -1,23 +1,33 @@
 package com.Sentinel.Reimbursement_Service.Repository;
 
+import com.Sentinel.Reimbursement_Service.DTO.HistoryHashView;
 import com.Sentinel.Reimbursement_Service.Entity.RequestHistory;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface ReimbursementHistoryRepo extends JpaRepository<RequestHistory, String> {
-    boolean existsByVendorNameAndExpenseDate(String vendorName, LocalDate expenseDate);
-    boolean existsByVendorNameAndExpenseDateAndAmount(String vendorName, LocalDate expenseDate, Double amount);
+    // one range scan of idx_rh_vendor_date_amount answers both duplicate questions: null when no entry has this
+    // vendor and date, false when some do but none with this amount, true for an exact duplicate
+    @Query(value = """
+            SELECT bool_or(amount = :amount) FROM request_history
+            WHERE vendor_name = :vendorName AND expense_date = :expenseDate
+            """, nativeQuery = true)
+    Boolean findDuplicateMatch(String vendorName, LocalDate expenseDate, Double amount);
 
-    @Query("SELECT r.imagePhash FROM RequestHistory r")
-    List<Long> findAllImagePhashes();
+    @Query("SELECT r.id AS id, r.imagePhash AS imagePhash, r.textHash AS textHash, " +
+            "r.vendorName AS vendorName, r.expenseDate AS expenseDate, r.createdAt AS createdAt FROM RequestHistory r")
+    List<HistoryHashView> findAllHashes();
 
-    @Query("SELECT r.textHash FROM RequestHistory r")
-    List<Long> findAllTextHashes();
+    @Query("SELECT r.id AS id, r.imagePhash AS imagePhash, r.textHash AS textHash, " +
+            "r.vendorName AS vendorName, r.expenseDate AS expenseDate, r.createdAt AS createdAt FROM RequestHistory r " +
+            "WHERE r.createdAt > :since")
+    List<HistoryHashView> findHashesCreatedAfter(LocalDateTime since);
 
     List<RequestHistory> findByEmployeeIdAndExpenseDate(String employeeId, LocalDate expenseDate);
 }
@@ -0,0 +1,54 @@
+package com.Sentinel.Reimbursement_Service.Repository;
+
+import com.Sentinel.Reimbursement_Service.DTO.JobState;
+import com.Sentinel.Reimbursement_Service.Entity.ReimbursementJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ReimbursementJobRepo extends JpaRepository<ReimbursementJob, String> {
+
+    // queued jobs that are due, plus running jobs whose worker stopped renewing the lease (e.g. pod restart)
+    @Query(value = """
+            SELECT * FROM reimbursement_job
+            WHERE (state = 'QUEUED' AND next_attempt_at <= :now)
+               OR (state = 'RUNNING' AND locked_until < :now)
+            ORDER BY next_attempt_at
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<ReimbursementJob> lockClaimable(LocalDateTime now, int limit);
+
+    // the writes below only apply while the caller still holds the lease of this attempt, 0 rows means it lost it
+
+    @Modifying
+    @Query("""
+            UPDATE ReimbursementJob j SET j.lockedUntil = :until
+            WHERE j.id = :id AND j.state = com.Sentinel.Reimbursement_Service.DTO.JobState.RUNNING
+              AND j.lockedBy = :workerId AND j.attempts = :attempts
+            """)
+    int renewLease(String id, String workerId, int attempts, LocalDateTime until);
+
+    // DONE or DEAD, the receipt is not needed any more
+    @Modifying
+    @Query("""
+            UPDATE ReimbursementJob j SET j.state = :state, j.receipt = null, j.lockedUntil = null, j.lastError = :error
+            WHERE j.id = :id AND j.state = com.Sentinel.Reimbursement_Service.DTO.JobState.RUNNING
+              AND j.lockedBy = :workerId AND j.attempts = :attempts
+            """)
+    int finish(String id, String workerId, int attempts, JobState state, String error);
+
+    @Modifying
+    @Query("""
+            UPDATE ReimbursementJob j SET j.state = com.Sentinel.Reimbursement_Service.DTO.JobState.QUEUED,
+                   j.lockedUntil = null, j.lastError = :error, j.nextAttemptAt = :nextAttemptAt
+            WHERE j.id = :id AND j.state = com.Sentinel.Reimbursement_Service.DTO.JobState.RUNNING
+              AND j.lockedBy = :workerId AND j.attempts = :attempts
+            """)
+    int requeue(String id, String workerId, int attempts, String error, LocalDateTime nextAttemptAt);
+}
@@ -1,13 +1,44 @@
 package com.Sentinel.Reimbursement_Service.Repository;
 
+import com.Sentinel.Reimbursement_Service.DTO.LegacyOcrView;
 import com.Sentinel.Reimbursement_Service.Entity.ReimbursementRequest;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 
 @Repository
-public interface ReimbursementRepo extends JpaRepository<ReimbursementRequest, String> {
+public interface ReimbursementRepo extends JpaRepository<ReimbursementRequest, String>, ReimbursementRepoCustom {
     List<ReimbursementRequest> findByEmployeeId(String employeeId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM ReimbursementRequest r WHERE r.id = :id")
+    Optional<ReimbursementRequest> lockById(String id);
+
+    // ocr_data is no longer mapped, these only exist to empty the column of databases created before ocr_text
+
+    @Query(value = """
+            SELECT count(*) > 0 FROM information_schema.columns
+            WHERE table_schema = current_schema() AND table_name = 'reimbursement_request' AND column_name = 'ocr_data'
+            """, nativeQuery = true)
+    boolean hasLegacyOcrColumn();
+
+    @Query(value = "SELECT id, ocr_data AS ocrData FROM reimbursement_request WHERE ocr_data IS NOT NULL LIMIT :limit",
+            nativeQuery = true)
+    List<LegacyOcrView> findLegacyOcr(int limit);
+
+    @Modifying
+    @Query(value = "UPDATE reimbursement_request SET ocr_text_hash = :hash, ocr_data = NULL WHERE id = :id",
+            nativeQuery = true)
+    int moveLegacyOcr(String id, String hash);
+
+    // table, indexes and TOAST together
+    @Query(value = "SELECT coalesce(pg_total_relation_size(to_regclass(:table)), 0)", nativeQuery = true)
+    long tableBytes(String table);
 }
@@ -0,0 +1,25 @@
+package com.Sentinel.Reimbursement_Service.Repository;
+
+import com.Sentinel.Reimbursement_Service.DTO.AdminReimbursementDTO;
+import com.Sentinel.Reimbursement_Service.DTO.RequestCursor;
+import com.Sentinel.Reimbursement_Service.DTO.RequestFilter;
+import com.Sentinel.Reimbursement_Service.DTO.Status;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface ReimbursementRepoCustom {
+
+    /**
+     * Up to limit requests matching the filter, newest first, starting right after the cursor (null for the first
+     * page). Selects only the columns of AdminReimbursementDTO, never the OCR text.
+     */
+    List<AdminReimbursementDTO> findSummaries(RequestFilter filter, RequestCursor after, int limit);
+
+    /**
+     * Moves up to batchSize of the oldest requests created before the cutoff with one of the given statuses into
+     * the archive table and returns how many moved. Must run inside a transaction.
+     */
+    int archiveBatch(LocalDateTime cutoff, Collection<Status> statuses, int batchSize);
+}
@@ -0,0 +1,111 @@
+package com.Sentinel.Reimbursement_Service.Repository;
+
+import com.Sentinel.Reimbursement_Service.DTO.AdminReimbursementDTO;
+import com.Sentinel.Reimbursement_Service.DTO.RequestCursor;
+import com.Sentinel.Reimbursement_Service.DTO.RequestFilter;
+import com.Sentinel.Reimbursement_Service.DTO.Status;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// the query is assembled from the filters that are set, "(:x IS NULL OR ...)" would hide the indexes from the planner
+public class ReimbursementRepoImpl implements ReimbursementRepoCustom {
+
+    private static final String ARCHIVED_COLUMNS = "id, employeeId, amount, expenseDate, vendorName, category, "
+            + "description, paymentMode, receiptURL, ocrTextHash, fraudScore, fraudLevel, status, fraudDescription, "
+            + "createdAt, updatedAt";
+
+    private static final String SELECT = "SELECT new com.Sentinel.Reimbursement_Service.DTO.AdminReimbursementDTO("
+            + "r.id, r.employeeId, r.amount, r.vendorName, r.category, r.expenseDate, r.fraudScore, r.fraudLevel, "
+            + "r.status, r.fraudDescription, r.createdAt) FROM ReimbursementRequest r";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<AdminReimbursementDTO> findSummaries(RequestFilter filter, RequestCursor after, int limit) {
+        List<String> conditions = new ArrayList<>();
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        if (filter.employeeId() != null) {
+            conditions.add("r.employeeId = :employeeId");
+            parameters.put("employeeId", filter.employeeId());
+        }
+        if (filter.fraudLevel() != null) {
+            conditions.add("r.fraudLevel = :fraudLevel");
+            parameters.put("fraudLevel", filter.fraudLevel());
+        }
+        if (filter.status() != null) {
+            conditions.add("r.status = :status");
+            parameters.put("status", filter.status());
+        }
+        if (filter.from() != null) {
+            conditions.add("r.expenseDate >= :from");
+            parameters.put("from", filter.from());
+        }
+        if (filter.to() != null) {
+            conditions.add("r.expenseDate <= :to");
+            parameters.put("to", filter.to());
+        }
+        if (after != null) {
+            // the redundant createdAt <= bound lets the index scan start at the cursor instead of the newest row
+            conditions.add("r.createdAt <= :afterCreatedAt "
+                    + "AND (r.createdAt < :afterCreatedAt OR (r.createdAt = :afterCreatedAt AND r.id < :afterId))");
+            parameters.put("afterCreatedAt", after.createdAt());
+            parameters.put("afterId", after.id());
+        }
+
+        String jpql = SELECT
+                + (conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions))
+                + " ORDER BY r.createdAt DESC, r.id DESC";
+        TypedQuery<AdminReimbursementDTO> query = entityManager.createQuery(jpql, AdminReimbursementDTO.class);
+        parameters.forEach(query::setParameter);
+        return query.setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    public int archiveBatch(LocalDateTime cutoff, Collection<Status> statuses, int batchSize) {
+        List<String> ids = entityManager.createQuery("SELECT r.id FROM ReimbursementRequest r "
+                        + "WHERE r.createdAt < :cutoff AND r.status IN :statuses ORDER BY r.createdAt", String.class)
+                .setParameter("cutoff", cutoff)
+                .setParameter("statuses", statuses)
+                .setMaxResults(batchSize)
+                .getResultList();
+        if (ids.isEmpty()) return 0;
+
+        // HQL insert-select copies the rows inside the database, nothing is loaded into the persistence context
+        String selected = "r." + ARCHIVED_COLUMNS.replace(", ", ", r.");
+        entityManager.createQuery("INSERT INTO ReimbursementRequestArchive (" + ARCHIVED_COLUMNS + ") "
+                        + "SELECT " + selected + " FROM ReimbursementRequest r WHERE r.id IN :ids")
+                .setParameter("ids", ids)
+                .executeUpdate();
+        entityManager.createQuery("UPDATE ReimbursementRequestArchive a SET a.archivedAt = :now WHERE a.id IN :ids")
+                .setParameter("now", LocalDateTime.now())
+                .setParameter("ids", ids)
+                .executeUpdate();
+        List<String> hashes = entityManager.createQuery("SELECT DISTINCT r.ocrTextHash FROM ReimbursementRequest r "
+                        + "WHERE r.id IN :ids AND r.ocrTextHash IS NOT NULL", String.class)
+                .setParameter("ids", ids)
+                .getResultList();
+        int moved = entityManager.createQuery("DELETE FROM ReimbursementRequest r WHERE r.id IN :ids")
+                .setParameter("ids", ids)
+                .executeUpdate();
+        // nothing reads the OCR text of an archived request; every save refreshes created_at, so a text stored
+        // since the cutoff may belong to a request not committed yet, and cached extractions still serve theirs
+        if (!hashes.isEmpty()) {
+            entityManager.createQuery("DELETE FROM OcrText o WHERE o.id IN :hashes AND o.createdAt < :cutoff "
+                            + "AND NOT EXISTS (SELECT 1 FROM ReimbursementRequest r WHERE r.ocrTextHash = o.id) "
+                            + "AND NOT EXISTS (SELECT 1 FROM ExtractionCacheEntry e WHERE e.ocrTextHash = o.id)")
+                    .setParameter("hashes", hashes)
+                    .setParameter("cutoff", cutoff)
+                    .executeUpdate();
+        }
+        return moved;
+    }
+}
@@ -1,27 +1,109 @@
 package com.Sentinel.Reimbursement_Service.Service;
 
+import com.Sentinel.Reimbursement_Service.DTO.LocalExtraction;
 import com.Sentinel.Reimbursement_Service.DTO.OCRdata;
-import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class AIService {
 
     private final GeminiService geminiService;
+    private final ReceiptFieldExtractor fieldExtractor;
+    private final MeterRegistry meterRegistry;
+    private final ExecutorService ingestExecutor;
+    private final JsonCodec jsonCodec;
+
+    @Value("${extraction.local.enabled:true}")
+    private boolean localExtractionEnabled;
+
+    @Value("${extraction.local.confidence-threshold:0.8}")
+    private double confidenceThreshold;
+
+    @Value("${extraction.local.required-fields:amount,expenseDate,vendorName}")
+    private List<String> requiredFields;
+
+    @Value("${extraction.batch.enabled:false}")
+    private boolean batchEnabled;
 
+    @Value("${extraction.batch.max-items:8}")
+    private int batchMaxItems;
+
+    @Value("${extraction.batch.max-wait-ms:200}")
+    private long batchMaxWaitMs;
+
+    private MicroBatcher<String, OCRdata> geminiBatcher;
+
+    @PostConstruct
+    public void init() {
+        if (batchEnabled) {
+            geminiBatcher = new MicroBatcher<>("gemini", batchMaxItems, batchMaxWaitMs,
+                    this::extractBatchWithGemini, this::extractWithGemini, ingestExecutor);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (geminiBatcher != null) {
+            geminiBatcher.close();
+        }
+    }
+
+    // Gemini is only asked when the local extractor is unsure about one of the fields the fraud engine relies on.
+    // receipt.extraction.local{outcome=hit|fallback} gives the share of LLM calls avoided.
     public OCRdata extractOCRData(String ocrResult) {
+        if (localExtractionEnabled) {
+            LocalExtraction local = fieldExtractor.extract(ocrResult);
+            if (local.isConfident(confidenceThreshold, requiredFields)) {
+                meterRegistry.counter("receipt.extraction.local", "outcome", "hit").increment();
+                log.info("receipt fields extracted locally {}", local.getConfidence());
+                return local.getData();
+            }
+            meterRegistry.counter("receipt.extraction.local", "outcome", "fallback").increment();
+            log.info("local extraction not confident enough {}, asking Gemini", local.getConfidence());
+        }
+        if (geminiBatcher == null) {
+            return extractWithGemini(ocrResult);
+        }
+        try {
+            return geminiBatcher.submit(ocrResult).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
+
+    private OCRdata extractWithGemini(String ocrResult) {
+        meterRegistry.counter("receipt.extraction.gemini.calls", "mode", "single").increment();
         String prompt = createPromptForOCR(ocrResult);
         String rawResponse = geminiService.processOCRdata(prompt);
         return mapOCRdata(rawResponse);
     }
 
+    // one prompt for the whole batch; items the model left out come back as null and are retried one by one
+    private List<OCRdata> extractBatchWithGemini(List<String> ocrResults) {
+        meterRegistry.counter("receipt.extraction.gemini.calls", "mode", "batch").increment();
+        meterRegistry.counter("receipt.extraction.gemini.batched.items").increment(ocrResults.size());
+        String rawResponse = geminiService.processOCRdata(createBatchPromptForOCR(ocrResults));
+        return mapBatchOCRdata(rawResponse, ocrResults.size());
+    }
+
     public String createPromptForOCR(String text) {
         return """
     You are an information extraction engine.
@@ -57,39 +139,91 @@ public class AIService {
     """.formatted(text);
     }
 
-    private OCRdata mapOCRdata(String rawResponse) throws RuntimeException {
+    public String createBatchPromptForOCR(List<String> texts) {
+        StringBuilder receipts = new StringBuilder();
+        for (int i = 0; i < texts.size(); i++) {
+            receipts.append("<<<RECEIPT ").append(i + 1).append(">>>\n")
+                    .append(texts.get(i))
+                    .append("\n<<<END ").append(i + 1).append(">>>\n");
+        }
+        return """
+    You are an information extraction engine.
+
+    EXTRACT DATA FOR EVERY RECEIPT BELOW AND RETURN ONLY A PURE JSON ARRAY.
+    IMPORTANT RULES:
+    - DO NOT return backticks.
+    - DO NOT return fences like ```json or ``` anything.
+    - DO NOT return explanations.
+    - Return only a JSON array with exactly one object per receipt.
+    - Every object must have an "id" field equal to the receipt number.
+    - Every field must always exist, values can be null.
+
+    JSON SCHEMA TO FOLLOW STRICTLY FOR EACH ARRAY ELEMENT:
+
+    {
+      "id": Integer,
+      "amount": Double or null,
+      "expenseDate": "YYYY-MM-DD" or null,
+      "vendorName": String or null,
+      "paymentMode": String or null,
+      "address": String or null,
+      "billNumber": String or null,
+      "taxAmount": Double or null
+    }
+
+    Additional rules:
+    - "paymentMode" must be one of: ["CASH", "CARD", "UPI", "CREDIT", "DEBIT"] or null.
+    - Use ISO date format (YYYY-MM-DD).
+    - If you are unsure, set the field to null.
+    - Vendor name must be clean (no symbols or noise).
+    - Never mix up data between receipts.
+
+    RECEIPTS (%d):
+    %s""".formatted(texts.size(), receipts);
+    }
+
+    private List<OCRdata> mapBatchOCRdata(String rawResponse, int expected) {
         try {
-            ObjectMapper mapper = new ObjectMapper();
-            mapper.registerModule(new JavaTimeModule());
-            mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-            mapper.configure(DeserializationFeature.READ_UNKNOWN_ENUM_VALUES_AS_NULL, true);
-            JsonNode root = mapper.readTree(rawResponse);
-
-
-            JsonNode textNode = root.path("candidates")
-                    .get(0)
-                    .path("content")
-                    .path("parts")
-                    .get(0)
-                    .path("text");
-
-            if (textNode.isMissingNode() || textNode.isNull()) {
-                throw new RuntimeException("Gemini OCR response missing text field");
+            ObjectMapper mapper = jsonCodec.mapper();
+            JsonNode array = mapper.readTree(extractJsonText(rawResponse));
+            if (!array.isArray()) {
+                throw new RuntimeException("Gemini batch response is not a JSON array");
             }
+            Map<Integer, OCRdata> byId = new HashMap<>();
+            for (JsonNode item : array) {
+                int id = item.path("id").asInt(-1);
+                if (id >= 1 && id <= expected) {
+                    byId.put(id, mapper.treeToValue(item, OCRdata.class));
+                }
+            }
+            List<OCRdata> results = new ArrayList<>(expected);
+            for (int id = 1; id <= expected; id++) {
+                results.add(byId.get(id));
+            }
+            return results;
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to parse Gemini batch OCR JSON", e);
+        }
+    }
+
+    private String extractJsonText(String rawResponse) throws Exception {
+        String text = jsonCodec.geminiText(rawResponse);
+        if (text == null) {
+            throw new RuntimeException("Gemini OCR response missing text field");
+        }
 
-            String jsonText = textNode.asText()
-                    .replaceAll("```json\\s*", "")
-                    .replaceAll("```\\s*", "")
-                    .replaceAll("^\\s+", "")
-                    .replaceAll("\\s+$", "")
-                    .trim();
+        String jsonText = JsonCodec.stripFences(text);
 
-            if(jsonText.isEmpty()) {
-                throw new RuntimeException("Empty JSON text after extraction");
-            }
+        if(jsonText.isEmpty()) {
+            throw new RuntimeException("Empty JSON text after extraction");
+        }
 
-            return mapper.readValue(jsonText, OCRdata.class);
+        return jsonText;
+    }
 
+    private OCRdata mapOCRdata(String rawResponse) throws RuntimeException {
+        try {
+            return jsonCodec.readOCRdata(extractJsonText(rawResponse));
         } catch (Exception e) {
             throw new RuntimeException("Failed to parse Gemini OCR JSON", e);
         }
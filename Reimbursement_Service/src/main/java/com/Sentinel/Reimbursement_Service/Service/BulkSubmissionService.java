@@ -0,0 +1,135 @@
+package com.Sentinel.Reimbursement_Service.Service;
+
+import com.Sentinel.Reimbursement_Service.Configuration.RequestDeadline;
+import com.Sentinel.Reimbursement_Service.DTO.BulkItemResult;
+import com.Sentinel.Reimbursement_Service.DTO.ReimbursementRequestDTO;
+import com.Sentinel.Reimbursement_Service.DTO.Status;
+import com.Sentinel.Reimbursement_Service.Entity.ReimbursementRequest;
+import com.Sentinel.Reimbursement_Service.Service.ReimbursementService.PreparedReceipt;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class BulkSubmissionService {
+
+    private final ReimbursementService reimbursementService;
+    private final ReceiptSpooler receiptSpooler;
+    private final ExecutorService ingestExecutor;
+
+    @Value("${reimbursement.bulk.max-items:50}")
+    private int maxItems;
+
+    @Value("${reimbursement.bulk.parallelism:4}")
+    private int parallelism;
+
+    @Value("${reimbursement.bulk.item-deadline-ms:90000}")
+    private long itemDeadlineMs;
+
+    public void validate(List<ReimbursementRequestDTO> data, List<MultipartFile> files) {
+        if (data == null || files == null || data.isEmpty()) {
+            throw new IllegalArgumentException("Bulk submission needs at least one data entry and file");
+        }
+        if (data.size() != files.size()) {
+            throw new IllegalArgumentException("Got " + data.size() + " data entries for " + files.size() + " files");
+        }
+        if (data.size() > maxItems) {
+            throw new IllegalArgumentException("At most " + maxItems + " receipts per bulk submission");
+        }
+    }
+
+    /**
+     * Runs every item through the createRequest stages. Up to reimbursement.bulk.parallelism items upload, OCR and
+     * hash at the same time, but the fraud checks and the save run strictly in submission order, each committed
+     * before the next one starts, so the duplicate checks of an item see the earlier items of the batch exactly as
+     * if they had been submitted one by one. Results reach the sink as items finish, never concurrently.
+     */
+    public void submit(List<ReimbursementRequestDTO> data, List<MultipartFile> files, Consumer<BulkItemResult> sink)
+            throws InterruptedException {
+        validate(data, files);
+        Semaphore slots = new Semaphore(parallelism);
+        CountDownLatch finished = new CountDownLatch(data.size());
+        ReentrantLock sinkLock = new ReentrantLock();
+        AtomicInteger failed = new AtomicInteger();
+        CompletableFuture<Void> previous = CompletableFuture.completedFuture(null);
+
+        for (int i = 0; i < data.size(); i++) {
+            // slots are taken in submission order, so the item whose turn it is to save always holds one
+            slots.acquire();
+            int index = i;
+            CompletableFuture<Void> turn = previous;
+            CompletableFuture<Void> saved = new CompletableFuture<>();
+            previous = saved;
+            ingestExecutor.execute(() -> {
+                try {
+                    BulkItemResult result;
+                    RequestDeadline.set(System.currentTimeMillis() + itemDeadlineMs);
+                    try {
+                        result = process(index, data.get(index), files.get(index), turn);
+                    } finally {
+                        RequestDeadline.clear();
+                        // an item that failed before its turn still holds the later ones back until the earlier ones saved
+                        turn.whenComplete((ignored, e) -> saved.complete(null));
+                    }
+                    if (result.getStatus() == Status.FAILED) {
+                        failed.incrementAndGet();
+                    }
+                    sinkLock.lock();
+                    try {
+                        sink.accept(result);
+                    } finally {
+                        sinkLock.unlock();
+                    }
+                } catch (RuntimeException e) {
+                    log.warn("could not deliver bulk result {}: {}", index, e.getMessage());
+                } finally {
+                    slots.release();
+                    finished.countDown();
+                }
+            });
+        }
+        finished.await();
+        log.info("bulk submission of {} receipts finished, {} failed", data.size(), failed.get());
+    }
+
+    private BulkItemResult process(int index, ReimbursementRequestDTO data, MultipartFile file, CompletableFuture<Void> turn) {
+        BulkItemResult result = new BulkItemResult();
+        result.setIndex(index);
+        result.setFileName(file.getOriginalFilename());
+        PreparedReceipt prepared = null;
+        try (ReceiptBuffer receipt = receiptSpooler.spool(file)) {
+            prepared = reimbursementService.prepare(receipt);
+            turn.join();
+            ReimbursementRequest request = reimbursementService.persist(data, prepared);
+            result.setRequestId(request.getId());
+            result.setStatus(request.getStatus());
+            result.setFraudLevel(request.getFraudLevel());
+            result.setFraudScore(request.getFraudScore());
+            result.setDescription(request.getFraudDescription());
+        } catch (Exception e) {
+            if (prepared != null) {
+                reimbursementService.discard(prepared);
+            }
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            log.warn("bulk item {} failed: {}", index, e.getMessage());
+            result.setStatus(Status.FAILED);
+            result.setError(e.getMessage());
+        }
+        return result;
+    }
+}
@@ -1,34 +1,254 @@
 package com.Sentinel.Reimbursement_Service.Service;
 
 import com.Sentinel.Reimbursement_Service.DTO.PolicyInfoDto;
+import com.Sentinel.Reimbursement_Service.DTO.PolicyLimitDto;
+import com.fasterxml.jackson.core.type.TypeReference;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Service
+@Slf4j
 public class EmployeePolicyService {
 
     private final WebClient webClient;
+    private final JsonCodec jsonCodec;
+    private final MeterRegistry meterRegistry;
+    private final ExecutorService ingestExecutor;
 
     @Value("${policy.service.base-url}")
     private String policyServiceUrl;
 
-    public EmployeePolicyService(WebClient.Builder webClientBuilder) {
-        this.webClient = webClientBuilder.build();
+    @Value("${policy.service.batch-url:}")
+    private String policyBatchUrl;
+
+    @Value("${policy.batch.max-items:64}")
+    private int batchMaxItems;
+
+    @Value("${policy.batch.max-wait-ms:5}")
+    private long batchMaxWaitMs;
+
+    @Value("${policy.cache.enabled:true}")
+    private boolean cacheEnabled;
+
+    @Value("${policy.cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    @Value("${policy.cache.max-entries:10000}")
+    private int maxEntries;
+
+    // access ordered, so the least recently used employee is dropped once maxEntries is reached
+    private final Map<String, CachedLimit> cache = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedLimit> eldest) {
+            return size() > maxEntries;
+        }
+    };
+
+    // a lock rather than synchronized, a virtual thread waiting on a monitor pins its carrier on Java 21
+    private final ReentrantLock cacheLock = new ReentrantLock();
+
+    // bumped on every invalidation, a lookup that raced with one does not write its (possibly stale) answer back
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private MicroBatcher<String, Fetched> lookupBatcher;
+
+    public EmployeePolicyService(WebClient policyClient, JsonCodec jsonCodec, MeterRegistry meterRegistry,
+                                 ExecutorService ingestExecutor) {
+        this.webClient = policyClient;
+        this.jsonCodec = jsonCodec;
+        this.meterRegistry = meterRegistry;
+        this.ingestExecutor = ingestExecutor;
+    }
+
+    // concurrent cache misses are coalesced into one call to the batch endpoint; employees the batch
+    // does not know come back as null and go through the single endpoint, which reports the reason.
+    // Both answers carry the ETag the entry is revalidated with once its TTL runs out
+    @PostConstruct
+    public void init() {
+        if (policyBatchUrl != null && !policyBatchUrl.isBlank()) {
+            lookupBatcher = new MicroBatcher<>("policy-limit", batchMaxItems, batchMaxWaitMs,
+                    ids -> {
+                        Map<String, Fetched> limits = fetchBatch(ids);
+                        List<Fetched> results = new ArrayList<>(ids.size());
+                        ids.forEach(id -> results.add(limits.get(id)));
+                        return results;
+                    },
+                    id -> fetch(id, null), ingestExecutor);
+        }
     }
 
+    @PreDestroy
+    public void shutdown() {
+        if (lookupBatcher != null) {
+            lookupBatcher.close();
+        }
+    }
+
+    /**
+     * Serves the limit from the near-cache while it is fresh. Once the TTL runs out the entry is revalidated
+     * with If-None-Match, and a 304 from the policy service only extends it. The policy service pushes
+     * invalidations whenever a policy or an employee changes, the TTL only covers a lost notification.
+     */
     public Double getPolicyLimitOfUser(String employeeId) {
+        if (!cacheEnabled) {
+            return lookup(employeeId).limit();
+        }
+
+        long now = System.currentTimeMillis();
+        CachedLimit cached;
+        cacheLock.lock();
+        try {
+            cached = cache.get(employeeId);
+        } finally {
+            cacheLock.unlock();
+        }
+        if (cached != null && cached.expiresAt() > now) {
+            count("hit");
+            return cached.limit();
+        }
+
+        long generation = invalidations.get();
+        Fetched fetched = cached == null || cached.etag() == null
+                ? lookup(employeeId)
+                : fetch(employeeId, cached.etag());
+        Double limit;
+        if (fetched.notModified()) {
+            count("revalidated");
+            limit = cached.limit();
+        } else {
+            count("miss");
+            limit = fetched.limit();
+        }
+
+        CachedLimit fresh = new CachedLimit(limit, fetched.etag(), System.currentTimeMillis() + ttlSeconds * 1000);
+        cacheLock.lock();
+        try {
+            if (invalidations.get() == generation) {
+                cache.put(employeeId, fresh);
+            }
+        } finally {
+            cacheLock.unlock();
+        }
+        return limit;
+    }
+
+    public void invalidate(Collection<String> employeeIds) {
+        cacheLock.lock();
+        try {
+            invalidations.incrementAndGet();
+            employeeIds.forEach(cache::remove);
+        } finally {
+            cacheLock.unlock();
+        }
+        log.info("policy limit cache invalidated for {} employees", employeeIds.size());
+    }
+
+    public void invalidateAll() {
+        cacheLock.lock();
+        try {
+            invalidations.incrementAndGet();
+            cache.clear();
+        } finally {
+            cacheLock.unlock();
+        }
+        log.info("policy limit cache cleared");
+    }
+
+    private Fetched lookup(String employeeId) {
+        if (lookupBatcher == null) {
+            return fetch(employeeId, null);
+        }
+        try {
+            return lookupBatcher.submit(employeeId).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
+
+    private Map<String, Fetched> fetchBatch(Collection<String> employeeIds) {
+        meterRegistry.counter("policy.limit.batch.calls").increment();
+        meterRegistry.counter("policy.limit.batch.items").increment(employeeIds.size());
+        try {
+            String response = webClient.post()
+                    .uri(policyBatchUrl)
+                    .header("Content-Type", "application/json")
+                    .bodyValue(jsonCodec.write(employeeIds))
+                    .retrieve()
+                    .bodyToMono(String.class)
+                    .block();
+            Map<String, PolicyLimitDto> limits = jsonCodec.mapper().readValue(response, new TypeReference<Map<String, PolicyLimitDto>>() {});
+            Map<String, Fetched> fetched = new HashMap<>(limits.size() * 2);
+            limits.forEach((id, limit) -> fetched.put(id, new Fetched(limit.getPolicyLimit(), limit.getEtag(), false)));
+            return fetched;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to parse policy service response", e);
+        }
+    }
+
+    private Fetched fetch(String employeeId, String etag) {
         PolicyInfoDto request = new PolicyInfoDto();
         request.setEmployeeId(employeeId);
         request.setPolicyLimit(0.0);
-        PolicyInfoDto response = webClient.post()
-                .uri(policyServiceUrl)
-                .header("Content-Type", "application/json")
-                .bodyValue(request)
-                .retrieve()
-                .bodyToMono(PolicyInfoDto.class)
-                .block();
+        try {
+            String body = jsonCodec.write(request);
+            return webClient.post()
+                    .uri(policyServiceUrl)
+                    .header("Content-Type", "application/json")
+                    .headers(headers -> {
+                        if (etag != null) headers.setIfNoneMatch(etag);
+                    })
+                    .bodyValue(body)
+                    .exchangeToMono(response -> {
+                        String responseEtag = response.headers().asHttpHeaders().getFirst(HttpHeaders.ETAG);
+                        if (response.statusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED)) {
+                            return Mono.just(new Fetched(null, etag, true));
+                        }
+                        if (!response.statusCode().is2xxSuccessful()) {
+                            return response.createException().flatMap(Mono::error);
+                        }
+                        return response.bodyToMono(String.class)
+                                .map(json -> new Fetched(parseLimit(json), responseEtag, false));
+                    })
+                    .block();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to parse policy service response", e);
+        }
+    }
 
-        return response.getPolicyLimit();
+    private Double parseLimit(String json) {
+        try {
+            return jsonCodec.policyLimit(json);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to parse policy service response", e);
+        }
     }
+
+    private void count(String result) {
+        meterRegistry.counter("policy.limit.cache", "result", result).increment();
+    }
+
+    private record CachedLimit(Double limit, String etag, long expiresAt) {}
+
+    private record Fetched(Double limit, String etag, boolean notModified) {}
 }
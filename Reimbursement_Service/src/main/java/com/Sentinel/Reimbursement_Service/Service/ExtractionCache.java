@@ -0,0 +1,124 @@
+package com.Sentinel.Reimbursement_Service.Service;
+
+import com.Sentinel.Reimbursement_Service.DTO.OCRdata;
+import com.Sentinel.Reimbursement_Service.DTO.ReceiptExtraction;
+import com.Sentinel.Reimbursement_Service.Entity.ExtractionCacheEntry;
+import com.Sentinel.Reimbursement_Service.Repository.ExtractionCacheRepo;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * OCR text and Gemini extraction keyed by the SHA-256 of the receipt bytes, so a resubmitted receipt skips
+ * both remote calls. The text itself stays in ocr_text, an entry only keeps its key. Concurrent submissions of the same receipt share a single in-flight computation.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ExtractionCache {
+
+    private final ExtractionCacheRepo cacheRepo;
+    private final JsonCodec jsonCodec;
+    private final OcrTextStore ocrTextStore;
+
+    private final ConcurrentHashMap<String, CompletableFuture<ReceiptExtraction>> inFlight = new ConcurrentHashMap<>();
+
+    @Value("${extraction.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${extraction.cache.ttl-hours:720}")
+    private long ttlHours;
+
+    @Value("${extraction.cache.max-entries:50000}")
+    private int maxEntries;
+
+    public ReceiptExtraction getOrCompute(String sha256, Callable<ReceiptExtraction> loader) throws Exception {
+        if (!enabled) {
+            return loader.call();
+        }
+
+        CompletableFuture<ReceiptExtraction> mine = new CompletableFuture<>();
+        CompletableFuture<ReceiptExtraction> running = inFlight.putIfAbsent(sha256, mine);
+        if (running != null) {
+            log.info("joining in-flight extraction for receipt {}", sha256);
+            return await(running);
+        }
+
+        try {
+            ReceiptExtraction extraction = lookup(sha256).orElse(null);
+            if (extraction == null) {
+                extraction = loader.call();
+                store(sha256, extraction);
+            }
+            mine.complete(extraction);
+            return extraction;
+        } catch (Exception e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(sha256, mine);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${extraction.cache.evict-interval-ms:3600000}")
+    public void evict() {
+        if (!enabled) return;
+        int expired = cacheRepo.deleteExpired(LocalDateTime.now().minus(ttl()));
+        int trimmed = cacheRepo.trimTo(maxEntries);
+        if (expired + trimmed > 0) {
+            log.info("extraction cache evicted {} expired and {} least recently used entries", expired, trimmed);
+        }
+    }
+
+    private Optional<ReceiptExtraction> lookup(String sha256) {
+        Optional<ExtractionCacheEntry> entry = cacheRepo.findById(sha256)
+                .filter(e -> e.getCreatedAt().isAfter(LocalDateTime.now().minus(ttl())));
+        if (entry.isEmpty()) {
+            return Optional.empty();
+        }
+        try {
+            OCRdata data = jsonCodec.readOCRdata(entry.get().getExtractedData());
+            String ocrText = ocrTextStore.load(entry.get().getOcrTextHash());
+            cacheRepo.touch(sha256, LocalDateTime.now());
+            log.info("extraction cache hit for receipt {}", sha256);
+            return Optional.of(new ReceiptExtraction(ocrText, data));
+        } catch (Exception e) {
+            log.warn("Ignoring unreadable extraction cache entry {}", sha256, e);
+            return Optional.empty();
+        }
+    }
+
+    // a failed write only costs the next resubmission its cache hit, it must not fail the request
+    private void store(String sha256, ReceiptExtraction extraction) {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            cacheRepo.save(new ExtractionCacheEntry(sha256, ocrTextStore.save(extraction.ocrText()),
+                    jsonCodec.write(extraction.data()), now, now));
+        } catch (Exception e) {
+            log.warn("Failed to store extraction cache entry {}", sha256, e);
+        }
+    }
+
+    private Duration ttl() {
+        return Duration.ofHours(ttlHours);
+    }
+
+    private static ReceiptExtraction await(CompletableFuture<ReceiptExtraction> future) throws Exception {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof Exception cause) throw cause;
+            throw e;
+        }
+    }
+}
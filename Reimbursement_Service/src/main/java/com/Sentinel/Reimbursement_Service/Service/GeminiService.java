@@ -16,8 +16,8 @@ public class GeminiService {
     @Value("${gemini.api.key}")
     private String geminiKey;
 
-    public GeminiService(WebClient.Builder webClientBuilder) {
-        this.webClient = webClientBuilder.build();
+    public GeminiService(WebClient geminiClient) {
+        this.webClient = geminiClient;
     }
 
     public String processOCRdata(String prompt) {
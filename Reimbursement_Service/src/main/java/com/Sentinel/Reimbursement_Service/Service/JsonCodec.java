@@ -0,0 +1,160 @@
+package com.Sentinel.Reimbursement_Service.Service;
+
+import com.Sentinel.Reimbursement_Service.DTO.OCRdata;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+
+/**
+ * One preconfigured mapper for the whole service (mappers are thread-safe and expensive to build) plus
+ * streaming helpers that pull a single string out of a response without building a JsonNode tree.
+ */
+@Service
+public class JsonCodec {
+
+    private static final String[] GEMINI_TEXT = {"candidates", "0", "content", "parts", "0", "text"};
+    private static final String[] OCR_STDOUT = {"data", "stdout"};
+    private static final String[] POLICY_LIMIT = {"policyLimit"};
+
+    private final ObjectMapper mapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+            .configure(DeserializationFeature.READ_UNKNOWN_ENUM_VALUES_AS_NULL, true)
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private final JsonFactory factory = mapper.getFactory();
+    private final ObjectReader ocrDataReader = mapper.readerFor(OCRdata.class);
+
+    public ObjectMapper mapper() {
+        return mapper;
+    }
+
+    public OCRdata readOCRdata(String json) throws JsonProcessingException {
+        return ocrDataReader.readValue(json);
+    }
+
+    public String write(Object value) throws JsonProcessingException {
+        return mapper.writeValueAsString(value);
+    }
+
+    /**
+     * candidates[0].content.parts[0].text of a Gemini generateContent response, or null when it is missing.
+     */
+    public String geminiText(String response) throws IOException {
+        return extractString(response, GEMINI_TEXT);
+    }
+
+    /**
+     * data.stdout of a tesseract-server response, or an empty string when it is missing.
+     */
+    public String ocrStdout(String response) throws IOException {
+        String text = extractString(response, OCR_STDOUT);
+        return text == null ? "" : text;
+    }
+
+    public Double policyLimit(String response) throws IOException {
+        String limit = extractString(response, POLICY_LIMIT);
+        return limit == null ? null : Double.valueOf(limit);
+    }
+
+    /**
+     * Walks the token stream along path (numeric segments index into arrays), skipping every other subtree,
+     * and returns the scalar found there as text. Returns null when the path does not exist or ends on null.
+     */
+    public String extractString(String json, String... path) throws IOException {
+        try (JsonParser parser = factory.createParser(json)) {
+            if (parser.nextToken() == null || !seek(parser, path, 0)) {
+                return null;
+            }
+            JsonToken token = parser.currentToken();
+            return token.isScalarValue() && token != JsonToken.VALUE_NULL ? parser.getText() : null;
+        }
+    }
+
+    private static boolean seek(JsonParser parser, String[] path, int depth) throws IOException {
+        if (depth == path.length) {
+            return true;
+        }
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.START_OBJECT) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                parser.nextToken();
+                if (name.equals(path[depth])) {
+                    return seek(parser, path, depth + 1);
+                }
+                parser.skipChildren();
+            }
+            return false;
+        }
+        if (token == JsonToken.START_ARRAY) {
+            int index = index(path[depth]);
+            int i = 0;
+            for (JsonToken t = parser.nextToken(); t != null && t != JsonToken.END_ARRAY; t = parser.nextToken()) {
+                if (i++ == index) {
+                    return seek(parser, path, depth + 1);
+                }
+                parser.skipChildren();
+            }
+        }
+        return false;
+    }
+
+    private static int index(String segment) {
+        try {
+            return Integer.parseInt(segment);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Drops every ```json / ``` fence together with the whitespace after it and trims the result, in one pass.
+     */
+    public static String stripFences(String text) {
+        int fence = text.indexOf("```");
+        if (fence < 0) {
+            return text.trim();
+        }
+        StringBuilder out = new StringBuilder(text.length());
+        int i = 0;
+        while (fence >= 0) {
+            out.append(text, i, fence);
+            i = fence + 3;
+            if (text.startsWith("json", i)) {
+                i += 4;
+            }
+            while (i < text.length() && isWhitespace(text.charAt(i))) {
+                i++;
+            }
+            fence = text.indexOf("```", i);
+        }
+        out.append(text, i, text.length());
+        return out.toString().trim();
+    }
+
+    /**
+     * Removes trailing whitespace and control characters (tesseract ends its output with newlines / form feeds).
+     */
+    public static String stripTrailingControl(String text) {
+        int end = text.length();
+        while (end > 0 && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return text.substring(0, end);
+    }
+
+    // the \s class the old regexes used
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+}
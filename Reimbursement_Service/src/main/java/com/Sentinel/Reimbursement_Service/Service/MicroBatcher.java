@@ -0,0 +1,160 @@
+package com.Sentinel.Reimbursement_Service.Service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Collects single calls for up to maxWaitMs or maxItems and hands them to batchCall together.
+ * batchCall returns one result per item in submit order; a null entry, a wrong sized result or an exception
+ * sends the affected items through singleCall, each on the executor, so a bad batch never fails its callers on its own.
+ * Items submitted after close() skip batching and go straight to singleCall.
+ */
+@Slf4j
+public class MicroBatcher<K, V> implements AutoCloseable {
+
+    private final String name;
+    private final int maxItems;
+    private final long maxWaitMs;
+    private final Function<List<K>, List<V>> batchCall;
+    private final Function<K, V> singleCall;
+    private final Executor executor;
+    private final ScheduledExecutorService timer;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private List<Pending<K, V>> pending = new ArrayList<>();
+    private ScheduledFuture<?> flushTask;
+    private boolean closed;
+
+    public MicroBatcher(String name, int maxItems, long maxWaitMs, Function<List<K>, List<V>> batchCall,
+                        Function<K, V> singleCall, Executor executor) {
+        this.name = name;
+        this.maxItems = maxItems;
+        this.maxWaitMs = maxWaitMs;
+        this.batchCall = batchCall;
+        this.singleCall = singleCall;
+        this.executor = executor;
+        this.timer = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name(name + "-batcher").daemon().factory());
+    }
+
+    public CompletableFuture<V> submit(K item) {
+        Pending<K, V> entry = new Pending<>(item, new CompletableFuture<>());
+        List<Pending<K, V>> full = null;
+        lock.lock();
+        try {
+            if (closed) {
+                full = List.of(entry);
+            } else {
+                pending.add(entry);
+                if (pending.size() >= maxItems) {
+                    full = drain();
+                } else if (pending.size() == 1) {
+                    flushTask = timer.schedule(this::flush, maxWaitMs, TimeUnit.MILLISECONDS);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (full != null) {
+            List<Pending<K, V>> batch = full;
+            execute(() -> run(batch));
+        }
+        return entry.result();
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+        } finally {
+            lock.unlock();
+        }
+        timer.shutdownNow();
+        flush();
+    }
+
+    private void flush() {
+        List<Pending<K, V>> batch;
+        lock.lock();
+        try {
+            batch = drain();
+        } finally {
+            lock.unlock();
+        }
+        if (!batch.isEmpty()) {
+            execute(() -> run(batch));
+        }
+    }
+
+    private List<Pending<K, V>> drain() {
+        List<Pending<K, V>> batch = pending;
+        pending = new ArrayList<>();
+        if (flushTask != null) {
+            flushTask.cancel(false);
+            flushTask = null;
+        }
+        return batch;
+    }
+
+    private void run(List<Pending<K, V>> batch) {
+        if (batch.size() == 1) {
+            runSingle(batch.getFirst());
+            return;
+        }
+        List<V> results;
+        try {
+            results = batchCall.apply(batch.stream().map(Pending::item).toList());
+            if (results == null || results.size() != batch.size()) {
+                throw new IllegalStateException("expected " + batch.size() + " results but got "
+                        + (results == null ? "none" : results.size()));
+            }
+        } catch (Exception e) {
+            log.warn("{} batch of {} failed, falling back to single calls", name, batch.size(), e);
+            batch.forEach(this::dispatchSingle);
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            V result = results.get(i);
+            if (result == null) {
+                dispatchSingle(batch.get(i));
+            } else {
+                batch.get(i).result().complete(result);
+            }
+        }
+    }
+
+    private void dispatchSingle(Pending<K, V> entry) {
+        execute(() -> runSingle(entry));
+    }
+
+    // a saturated or shut down executor runs the work on the calling thread instead of failing the callers
+    private void execute(Runnable task) {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            task.run();
+        }
+    }
+
+    private void runSingle(Pending<K, V> entry) {
+        try {
+            entry.result().complete(singleCall.apply(entry.item()));
+        } catch (Exception e) {
+            entry.result().completeExceptionally(e);
+        }
+    }
+
+    private record Pending<K, V>(K item, CompletableFuture<V> result) {
+    }
+}
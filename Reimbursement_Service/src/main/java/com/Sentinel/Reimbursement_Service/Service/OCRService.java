@@ -1,51 +1,53 @@
 package com.Sentinel.Reimbursement_Service.Service;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.MediaType;
 import org.springframework.http.client.MultipartBodyBuilder;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.client.WebClient;
 
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class OCRService {
 
     private final WebClient ocrClient;
+    private final JsonCodec jsonCodec;
+    private final ReceiptImagePreprocessor preprocessor;
+    private final MeterRegistry meterRegistry;
 
-    public String extractText(MultipartFile file, String options) throws Exception {
+    public String extractText(ReceiptBuffer receipt, String options) throws Exception {
+        ReceiptBuffer payload = preprocessor.prepare(receipt);
         MultipartBodyBuilder builder = new MultipartBodyBuilder();
 
-        builder.part("file", file.getResource())
-                .filename(file.getOriginalFilename())
+        builder.part("file", payload.resource())
+                .filename(payload.getFilename())
                 .contentType(MediaType.APPLICATION_OCTET_STREAM);
 
         builder.part("options", options)
                 .contentType(MediaType.APPLICATION_JSON);
         log.info("OCR request sent");
+        long start = System.nanoTime();
         String response = ocrClient.post()
                 .contentType(MediaType.MULTIPART_FORM_DATA)
                 .body(BodyInserters.fromMultipartData(builder.build()))
                 .retrieve()
                 .bodyToMono(String.class)
                 .block();
+        // tagged so OCR latency with and without preprocessing can be compared on the same dashboard
+        meterRegistry.timer("ocr.extract", "preprocessed", Boolean.toString(payload != receipt))
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
 
         return parseOcrText(response);
     }
 
-    private String parseOcrText(String response) throws JsonProcessingException {
-        ObjectMapper mapper = new ObjectMapper();
-        JsonNode root = mapper.readTree(response);
-        String text = root.path("data").path("stdout").asText();
-
-        text = text.replaceAll("[\\s\\u0000-\\u001F]+$", "");
-
-        return text;
+    private String parseOcrText(String response) throws IOException {
+        return JsonCodec.stripTrailingControl(jsonCodec.ocrStdout(response));
     }
 }
@@ -0,0 +1,140 @@
+package com.Sentinel.Reimbursement_Service.Service;
+
+import com.Sentinel.Reimbursement_Service.DTO.LegacyOcrView;
+import com.Sentinel.Reimbursement_Service.Entity.OcrText;
+import com.Sentinel.Reimbursement_Service.Repository.OcrTextRepo;
+import com.Sentinel.Reimbursement_Service.Repository.ReimbursementRepo;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * OCR output lives deflated in ocr_text, keyed by the SHA-256 of the text, and requests only keep that key.
+ * The same receipt resubmitted, or retried by the job worker, stores its text once. Reading it back is explicit,
+ * nothing that lists or exports requests ever touches the table.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class OcrTextStore {
+
+    private final OcrTextRepo ocrTextRepo;
+    private final ReimbursementRepo reimbursementRepo;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${ocr.text.compression-level:6}")
+    private int compressionLevel;
+
+    @Value("${ocr.text.migration.batch-size:500}")
+    private int migrationBatchSize;
+
+    private volatile boolean legacyMigrated;
+
+    // returns the key to keep on the request, null for null text
+    public String save(String text) {
+        if (text == null) return null;
+        byte[] raw = text.getBytes(StandardCharsets.UTF_8);
+        String id = sha256(raw);
+        boolean inserted = ocrTextRepo.upsert(id, compress(raw, compressionLevel), raw.length);
+        meterRegistry.counter("ocr.text.stored", "result", inserted ? "new" : "duplicate").increment();
+        return id;
+    }
+
+    public String load(String id) {
+        if (id == null) return null;
+        OcrText stored = ocrTextRepo.findById(id)
+                .orElseThrow(() -> new RuntimeException("OCR text " + id + " not found"));
+        return new String(decompress(stored.getCompressed(), stored.getOriginalLength()), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Moves the text still sitting in the old reimbursement_request.ocr_data column into ocr_text, a batch per
+     * transaction, and clears the column so its TOAST space can be reclaimed by vacuum. Stops checking for
+     * the column once it is empty; dropping it afterwards is left to the operator.
+     */
+    @Scheduled(initialDelayString = "${ocr.text.migration.initial-delay-ms:60000}",
+            fixedDelayString = "${ocr.text.migration.interval-ms:3600000}")
+    public void migrateLegacy() {
+        if (legacyMigrated) return;
+        if (!reimbursementRepo.hasLegacyOcrColumn()) {
+            legacyMigrated = true;
+            return;
+        }
+        long moved = 0;
+        int batch;
+        do {
+            batch = transactionTemplate.execute(status -> {
+                List<LegacyOcrView> rows = reimbursementRepo.findLegacyOcr(migrationBatchSize);
+                for (LegacyOcrView row : rows) {
+                    reimbursementRepo.moveLegacyOcr(row.getId(), save(row.getOcrData()));
+                }
+                return rows.size();
+            });
+            moved += batch;
+        } while (batch == migrationBatchSize);
+        legacyMigrated = true;
+        log.info("moved the OCR text of {} requests into ocr_text", moved);
+    }
+
+    static byte[] compress(byte[] raw, int level) {
+        Deflater deflater = new Deflater(level);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 3));
+            byte[] chunk = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(chunk, 0, deflater.deflate(chunk));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    static byte[] decompress(byte[] compressed, int originalLength) {
+        if (originalLength == 0) return new byte[0];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            byte[] raw = new byte[originalLength];
+            int read = 0;
+            while (read < originalLength && !inflater.finished()) {
+                int n = inflater.inflate(raw, read, originalLength - read);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+                read += n;
+            }
+            if (read != originalLength || !inflater.finished()) {
+                throw new RuntimeException("Corrupt OCR text, inflated " + read + " of " + originalLength + " bytes");
+            }
+            return raw;
+        } catch (DataFormatException e) {
+            throw new RuntimeException("Corrupt OCR text", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static String sha256(byte[] raw) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(raw));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
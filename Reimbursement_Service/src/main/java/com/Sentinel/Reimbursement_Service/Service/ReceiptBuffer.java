@@ -0,0 +1,174 @@
+package com.Sentinel.Reimbursement_Service.Service;
+
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A receipt spooled once by {@link ReceiptSpooler}, either into a heap array or a memory-mapped temp file.
+ * Upload, OCR and hashing each get their own read-only view, so reading it never copies it onto the heap.
+ * Closing the buffer deletes the temp file and gives its bytes back to the spooler's memory budget.
+ */
+public final class ReceiptBuffer implements AutoCloseable {
+
+    private final ByteBuffer content;
+    private final byte[] array;
+    private final String filename;
+    private final String contentType;
+    private final Path spoolFile;
+    private final Runnable release;
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private volatile String sha256;
+
+    ReceiptBuffer(ByteBuffer content, String filename, String contentType, Path spoolFile, Runnable release) {
+        this.content = content.asReadOnlyBuffer();
+        this.array = content.hasArray() && content.arrayOffset() == 0 && content.position() == 0
+                && content.limit() == content.array().length ? content.array() : null;
+        this.filename = filename;
+        this.contentType = contentType;
+        this.spoolFile = spoolFile;
+        this.release = release;
+    }
+
+    // for receipts that already sit on the heap (queued jobs, benchmarks), not counted against any budget
+    public static ReceiptBuffer wrap(byte[] bytes, String filename, String contentType) {
+        return new ReceiptBuffer(ByteBuffer.wrap(bytes), filename, contentType, null, () -> {});
+    }
+
+    public String getFilename() {
+        return filename;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public int size() {
+        return content.limit();
+    }
+
+    /**
+     * The temp file backing the buffer, or null when it is held in memory.
+     */
+    public File getSpoolFile() {
+        return spoolFile == null ? null : spoolFile.toFile();
+    }
+
+    public ByteBuffer view() {
+        return content.duplicate();
+    }
+
+    public InputStream inputStream() {
+        return new ByteBufferInputStream(view());
+    }
+
+    public Resource resource() {
+        return new AbstractResource() {
+            @Override
+            public String getDescription() {
+                return "receipt [" + filename + "]";
+            }
+
+            @Override
+            public String getFilename() {
+                return filename;
+            }
+
+            @Override
+            public long contentLength() {
+                return size();
+            }
+
+            @Override
+            public InputStream getInputStream() {
+                return inputStream();
+            }
+        };
+    }
+
+    /**
+     * Hex SHA-256 of the content, digested straight from the buffer and computed only once.
+     */
+    public String sha256() {
+        String digest = sha256;
+        if (digest == null) {
+            try {
+                MessageDigest md = MessageDigest.getInstance("SHA-256");
+                md.update(view());
+                digest = HexFormat.of().formatHex(md.digest());
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+            sha256 = digest;
+        }
+        return digest;
+    }
+
+    // the array behind an in-memory receipt, handed out without a copy for APIs that only take a byte[];
+    // null when the receipt is mapped or only fills part of its array. Never written to.
+    byte[] heapArray() {
+        return array;
+    }
+
+    public byte[] toByteArray() {
+        byte[] bytes = new byte[size()];
+        view().get(bytes);
+        return bytes;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!closed.compareAndSet(false, true)) return;
+        try {
+            if (spoolFile != null) {
+                Files.deleteIfExists(spoolFile);
+            }
+        } finally {
+            release.run();
+        }
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) return 0;
+            if (!buffer.hasRemaining()) return -1;
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public long skip(long n) {
+            int skipped = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + skipped);
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package com.Sentinel.Reimbursement_Service.Service;
+
+import com.Sentinel.Reimbursement_Service.DTO.LocalExtraction;
+import com.Sentinel.Reimbursement_Service.DTO.OCRdata;
+import com.Sentinel.Reimbursement_Service.DTO.Payment;
+import org.springframework.stereotype.Service;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Rule based parser for the regular receipt layouts we mostly get (label followed by a value on the same or the
+ * next line). Every field gets a confidence so AIService can decide whether Gemini is still needed.
+ */
+@Service
+public class ReceiptFieldExtractor {
+
+    public static final String AMOUNT = "amount";
+    public static final String EXPENSE_DATE = "expenseDate";
+    public static final String VENDOR_NAME = "vendorName";
+    public static final String PAYMENT_MODE = "paymentMode";
+    public static final String BILL_NUMBER = "billNumber";
+    public static final String TAX_AMOUNT = "taxAmount";
+
+    // 803.00, 1,234.50, 1,00,000.00 - but not 2.50% or the 2024 in a date
+    private static final Pattern MONEY = Pattern.compile("(?<!\\d)(?<!\\d[.,])(\\d{1,3}(?:,\\d{2,3})+|\\d+)\\.(\\d{2})(?!\\d|\\s*%)");
+
+    private static final Pattern TOTAL_LABEL = Pattern.compile(
+            "(?i)\\b(grand\\s*total|net\\s*(?:amount|payable|total)|total\\s*(?:amount|payable|due)|amount\\s*(?:payable|due)|bill\\s*amount)\\b");
+    private static final Pattern PLAIN_TOTAL = Pattern.compile("(?i)^\\W*(?:total|amount)\\b");
+    private static final Pattern NOT_A_TOTAL = Pattern.compile(
+            "(?i)\\b(sub\\s*-?\\s*total|total\\s*(?:qty|quantity|items?|tax|gst|discount|savings))\\b");
+
+    private static final Pattern TAX_LINE = Pattern.compile("(?i)\\b(cgst|sgst|igst|utgst|gst|vat|cess|service\\s*tax|tax)\\b");
+    private static final Pattern TOTAL_TAX = Pattern.compile("(?i)\\btotal\\s*(?:tax|gst)\\b");
+
+    private static final Pattern BILL_NO = Pattern.compile(
+            "(?i)\\b(?:bill|invoice|inv|receipt|rcpt|order|txn)\\s*(?:no|number|num|#)?\\s*\\.?\\s*[:#-]?\\s*([A-Z0-9][A-Z0-9/-]{2,})");
+
+    private static final Pattern NUMERIC_DATE = Pattern.compile("(?<![\\d/.-])(\\d{1,2})[/.-](\\d{1,2})[/.-](\\d{4}|\\d{2})(?![\\d/.-]*\\d)");
+    private static final Pattern ISO_DATE = Pattern.compile("(?<![\\d/.-])(\\d{4})[/.-](\\d{1,2})[/.-](\\d{1,2})(?![\\d])");
+    private static final Pattern TEXT_DATE = Pattern.compile(
+            "(?i)(?<!\\d)(\\d{1,2})(?:st|nd|rd|th)?[\\s/.,-]*(jan|feb|mar|apr|may|jun|jul|aug|sep|oct|nov|dec)[a-z]*\\.?[\\s/.,'-]*(\\d{4}|\\d{2})(?!\\d)");
+    private static final Pattern DATE_LABEL = Pattern.compile("(?i)\\b(date|dt|dated)\\b");
+    private static final String MONTHS = "janfebmaraprmayjunjulaugsepoctnovdec";
+
+    private static final Pattern UPI = Pattern.compile("(?i)\\b(upi|gpay|google\\s*pay|phonepe|paytm|bhim)\\b");
+    private static final Pattern CREDIT = Pattern.compile("(?i)\\bcredit\\s*card\\b");
+    private static final Pattern DEBIT = Pattern.compile("(?i)\\bdebit\\s*card\\b");
+    private static final Pattern CARD = Pattern.compile("(?i)\\b(card|visa|master\\s*card|rupay|amex)\\b");
+    private static final Pattern CASH = Pattern.compile("(?i)\\bcash\\b(?!\\s*(memo|bill))");
+
+    private static final Pattern NOT_A_VENDOR = Pattern.compile(
+            "(?i)(tax\\s*invoice|invoice|receipt|\\bbill\\b|gstin|fssai|welcome|\\btel\\b|\\bph\\b|phone|\\bdate\\b|cash\\s*memo|www\\.|@|\\border\\b|\\bcopy\\b|ticket)");
+    private static final int VENDOR_LINES = 4;
+
+    public LocalExtraction extract(String ocrText) {
+        LocalExtraction result = new LocalExtraction();
+        if (ocrText == null || ocrText.isBlank()) {
+            return result;
+        }
+        String[] lines = ocrText.split("\\R");
+        for (int i = 0; i < lines.length; i++) {
+            lines[i] = lines[i].trim();
+        }
+
+        extractAmount(lines, result);
+        extractTax(lines, result);
+        extractDate(lines, result);
+        extractVendor(lines, result);
+        extractBillNumber(lines, result);
+        extractPaymentMode(lines, result);
+        return result;
+    }
+
+    // the last labelled total wins: the grand total is printed below the sub totals
+    private void extractAmount(String[] lines, LocalExtraction result) {
+        Double amount = null;
+        double confidence = 0;
+        for (int pass = 0; pass < 2 && amount == null; pass++) {
+            for (int i = 0; i < lines.length; i++) {
+                String line = lines[i];
+                boolean labelled = pass == 0
+                        ? TOTAL_LABEL.matcher(line).find()
+                        : PLAIN_TOTAL.matcher(line).find() && !NOT_A_TOTAL.matcher(line).find();
+                if (!labelled) continue;
+                Double value = lastMoney(line);
+                double found = pass == 0 ? 0.95 : 0.85;
+                // a bare "Total"/"Amount" with nothing after it is more likely a column header
+                if (value == null && pass == 0 && i + 1 < lines.length) {
+                    value = lastMoney(lines[i + 1]);
+                    found -= 0.1;
+                }
+                if (value != null && value > 0) {
+                    amount = value;
+                    confidence = found;
+                }
+            }
+        }
+        if (amount == null) {
+            // no label at all, the largest figure on the receipt is usually the total but not reliably
+            for (String line : lines) {
+                for (Double value : money(line)) {
+                    if (amount == null || value > amount) amount = value;
+                }
+            }
+            confidence = 0.4;
+        }
+        set(result, AMOUNT, amount, confidence);
+    }
+
+    private void extractTax(String[] lines, LocalExtraction result) {
+        double sum = 0;
+        int parts = 0;
+        for (String line : lines) {
+            if (!TAX_LINE.matcher(line).find() || TOTAL_LABEL.matcher(line).find()) continue;
+            Double value = lastMoney(line);
+            if (value == null) continue;
+            if (TOTAL_TAX.matcher(line).find()) {
+                set(result, TAX_AMOUNT, value, 0.9);
+                return;
+            }
+            sum += value;
+            parts++;
+        }
+        if (parts > 0) {
+            set(result, TAX_AMOUNT, Math.round(sum * 100) / 100.0, 0.85);
+        }
+    }
+
+    private void extractDate(String[] lines, LocalExtraction result) {
+        List<DateCandidate> candidates = new ArrayList<>();
+        for (String line : lines) {
+            double boost = DATE_LABEL.matcher(line).find() ? 0.05 : 0;
+            Matcher m = ISO_DATE.matcher(line);
+            while (m.find()) {
+                addDate(candidates, m.group(1), m.group(2), m.group(3), 0.9 + boost);
+            }
+            m = TEXT_DATE.matcher(line);
+            while (m.find()) {
+                String month = Integer.toString(MONTHS.indexOf(m.group(2).toLowerCase()) / 3 + 1);
+                addDate(candidates, year(m.group(3)), month, m.group(1), (m.group(3).length() == 2 ? 0.85 : 0.9) + boost);
+            }
+            m = NUMERIC_DATE.matcher(line);
+            while (m.find()) {
+                int first = Integer.parseInt(m.group(1));
+                int second = Integer.parseInt(m.group(2));
+                // Indian receipts print day first; only a day above 12 makes the order certain
+                double confidence = first > 12 || second > 12 ? 0.9 : 0.8;
+                if (m.group(3).length() == 2) confidence -= 0.05;
+                addDate(candidates, year(m.group(3)), m.group(2), m.group(1), confidence + boost);
+            }
+        }
+        if (candidates.isEmpty()) return;
+
+        DateCandidate best = candidates.getFirst();
+        Set<LocalDate> distinct = new LinkedHashSet<>();
+        for (DateCandidate candidate : candidates) {
+            distinct.add(candidate.date());
+            if (candidate.confidence() > best.confidence()) best = candidate;
+        }
+        double confidence = best.confidence();
+        if (distinct.size() > 1 && confidence < 0.9) {
+            confidence = 0.5;
+        }
+        set(result, EXPENSE_DATE, best.date(), Math.min(confidence, 0.95));
+    }
+
+    private void extractVendor(String[] lines, LocalExtraction result) {
+        int seen = 0;
+        for (int index = 0; index < lines.length; index++) {
+            String line = lines[index];
+            if (line.isEmpty()) continue;
+            if (++seen > VENDOR_LINES) return;
+            if (NOT_A_VENDOR.matcher(line).find()) continue;
+
+            int letters = 0;
+            int other = 0;
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (Character.isLetter(c)) letters++;
+                else if (!Character.isWhitespace(c)) other++;
+            }
+            if (letters < 3 || letters < (letters + other) * 0.8) continue;
+
+            String name = line.replaceAll("[^\\p{L}&' .-]", " ")
+                    .replaceAll("\\s+", " ")
+                    .replaceAll("^[^\\p{L}]+|[^\\p{L}.]+$", "")
+                    .trim();
+            if (name.length() < 3) continue;
+            // the first line alone is only a guess; it is trusted once an invoice, GSTIN, date or similar header
+            // line follows it, otherwise Gemini still gets the receipt
+            double confidence = seen > 1 ? 0.7 : headerFollows(lines, index) ? 0.85 : 0.6;
+            set(result, VENDOR_NAME, name, confidence);
+            return;
+        }
+    }
+
+    private static boolean headerFollows(String[] lines, int vendorLine) {
+        int seen = 0;
+        for (int i = vendorLine + 1; i < lines.length && seen < VENDOR_LINES; i++) {
+            if (lines[i].isEmpty()) continue;
+            seen++;
+            if (NOT_A_VENDOR.matcher(lines[i]).find()) return true;
+        }
+        return false;
+    }
+
+    private void extractBillNumber(String[] lines, LocalExtraction result) {
+        for (String line : lines) {
+            Matcher m = BILL_NO.matcher(line);
+            while (m.find()) {
+                String value = m.group(1);
+                if (value.chars().anyMatch(Character::isDigit)) {
+                    set(result, BILL_NUMBER, value, 0.9);
+                    return;
+                }
+            }
+        }
+    }
+
+    private void extractPaymentMode(String[] lines, LocalExtraction result) {
+        Set<Payment> modes = new LinkedHashSet<>();
+        for (String line : lines) {
+            if (UPI.matcher(line).find()) modes.add(Payment.UPI);
+            if (CREDIT.matcher(line).find()) modes.add(Payment.CREDIT);
+            else if (DEBIT.matcher(line).find()) modes.add(Payment.DEBIT);
+            else if (CARD.matcher(line).find()) modes.add(Payment.CARD);
+            if (CASH.matcher(line).find()) modes.add(Payment.CASH);
+        }
+        if (modes.isEmpty()) return;
+        set(result, PAYMENT_MODE, modes.iterator().next(), modes.size() == 1 ? 0.9 : 0.5);
+    }
+
+    private static void addDate(List<DateCandidate> candidates, String year, String month, String day, double confidence) {
+        try {
+            LocalDate date = LocalDate.of(Integer.parseInt(year), Integer.parseInt(month), Integer.parseInt(day));
+            candidates.add(new DateCandidate(date, confidence));
+        } catch (DateTimeException | NumberFormatException ignored) {
+            // not a real date, e.g. a bill number that happens to look like one
+        }
+    }
+
+    private static String year(String year) {
+        return year.length() == 2 ? "20" + year : year;
+    }
+
+    private static Double lastMoney(String line) {
+        List<Double> values = money(line);
+        return values.isEmpty() ? null : values.getLast();
+    }
+
+    private static List<Double> money(String line) {
+        List<Double> values = new ArrayList<>();
+        Matcher m = MONEY.matcher(line);
+        while (m.find()) {
+            values.add(Double.parseDouble(m.group(1).replace(",", "") + "." + m.group(2)));
+        }
+        return values;
+    }
+
+    private static void set(LocalExtraction result, String field, Object value, double confidence) {
+        if (value == null) return;
+        OCRdata data = result.getData();
+        switch (field) {
+            case AMOUNT -> data.setAmount((Double) value);
+            case EXPENSE_DATE -> data.setExpenseDate((LocalDate) value);
+            case VENDOR_NAME -> data.setVendorName((String) value);
+            case PAYMENT_MODE -> data.setPaymentMode((Payment) value);
+            case BILL_NUMBER -> data.setBillNumber((String) value);
+            case TAX_AMOUNT -> data.setTaxAmount((Double) value);
+            default -> throw new IllegalArgumentException(field);
+        }
+        result.getConfidence().put(field, Math.round(confidence * 100) / 100.0);
+    }
+
+    private record DateCandidate(LocalDate date, double confidence) {
+    }
+}
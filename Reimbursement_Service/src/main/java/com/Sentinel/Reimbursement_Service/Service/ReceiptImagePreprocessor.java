@@ -0,0 +1,269 @@
+package com.Sentinel.Reimbursement_Service.Service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.geom.AffineTransform;
+import java.awt.image.AffineTransformOp;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.WritableRaster;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Turns a phone photo of a receipt into what Tesseract needs before it is posted to the OCR service: upright
+ * (EXIF orientation), grayscale, longest edge at most ocr.preprocess.max-edge pixels, optionally binarized,
+ * re-encoded as PNG. Only the OCR call sees the result, the stored receipt and the fraud hashes use the upload.
+ * Anything ImageIO cannot read (PDFs, HEIC) goes to the OCR service unchanged.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ReceiptImagePreprocessor {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${ocr.preprocess.enabled:true}")
+    private boolean enabled;
+
+    // about 300 DPI across an 8 inch receipt, more only slows Tesseract down
+    @Value("${ocr.preprocess.max-edge:2400}")
+    private int maxEdge;
+
+    @Value("${ocr.preprocess.binarize:false}")
+    private boolean binarize;
+
+    public ReceiptBuffer prepare(ReceiptBuffer receipt) {
+        if (!enabled) return receipt;
+        long start = System.nanoTime();
+        String result = "failed";
+        try (InputStream in = receipt.inputStream()) {
+            int orientation = exifOrientation(receipt.view());
+            BufferedImage decoded = ImageIO.read(in);
+            if (decoded == null) {
+                result = "unsupported";
+                return receipt;
+            }
+            boolean resized = Math.max(decoded.getWidth(), decoded.getHeight()) > maxEdge;
+            BufferedImage gray = toGray(decoded, orientation, maxEdge);
+            byte[] png = encodePng(binarize ? binarize(gray) : gray);
+            // a small, upright scan can already be a tighter JPEG than its grayscale PNG
+            if (!resized && orientation == 1 && !binarize && png.length >= receipt.size()) {
+                result = "unchanged";
+                return receipt;
+            }
+            meterRegistry.counter("ocr.preprocess.bytes", "stage", "in").increment(receipt.size());
+            meterRegistry.counter("ocr.preprocess.bytes", "stage", "out").increment(png.length);
+            result = "converted";
+            return ReceiptBuffer.wrap(png, pngName(receipt.getFilename()), "image/png");
+        } catch (IOException | RuntimeException e) {
+            log.warn("could not preprocess {}, sending it to OCR unchanged: {}", receipt.getFilename(), e.getMessage());
+            return receipt;
+        } finally {
+            meterRegistry.timer("ocr.preprocess", "result", result).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Grayscale copy of the image, rotated or flipped upright for the given EXIF orientation and scaled down so
+     * its longest edge is at most maxEdge. Large reductions are done in halving steps: a single bilinear step
+     * only averages a 2x2 neighbourhood and would drop whole strokes of small print.
+     */
+    static BufferedImage toGray(BufferedImage image, int orientation, int maxEdge) {
+        double scale = Math.min(1.0, (double) maxEdge / Math.max(image.getWidth(), image.getHeight()));
+        int width = Math.max(1, (int) Math.round(image.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * scale));
+
+        BufferedImage current = grayscale(image);
+        while (current.getWidth() >= width * 2 && current.getHeight() >= height * 2) {
+            int halfWidth = current.getWidth() / 2;
+            int halfHeight = current.getHeight() / 2;
+            current = resample(current, halfWidth, halfHeight,
+                    AffineTransform.getScaleInstance((double) halfWidth / current.getWidth(), (double) halfHeight / current.getHeight()));
+        }
+
+        boolean swapped = orientation >= 5 && orientation <= 8;
+        AffineTransform transform = orientationTransform(orientation, width, height);
+        transform.concatenate(AffineTransform.getScaleInstance((double) width / current.getWidth(), (double) height / current.getHeight()));
+        return resample(current, swapped ? height : width, swapped ? width : height, transform);
+    }
+
+    // JPEG decodes to 3-byte BGR, converting that by hand is several times faster than Java2D's color conversion
+    private static BufferedImage grayscale(BufferedImage image) {
+        if (image.getType() != BufferedImage.TYPE_3BYTE_BGR) {
+            BufferedImage gray = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_BYTE_GRAY);
+            Graphics2D g = gray.createGraphics();
+            try {
+                // transparent PNGs end up on white paper rather than black
+                g.setColor(Color.WHITE);
+                g.fillRect(0, 0, gray.getWidth(), gray.getHeight());
+                g.drawImage(image, 0, 0, null);
+            } finally {
+                g.dispose();
+            }
+            return gray;
+        }
+        byte[] bgr = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+        BufferedImage gray = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_BYTE_GRAY);
+        byte[] luma = ((DataBufferByte) gray.getRaster().getDataBuffer()).getData();
+        for (int i = 0, j = 0; i < luma.length; i++, j += 3) {
+            // ITU-R BT.601 weights in 8 bit fixed point
+            luma[i] = (byte) ((29 * (bgr[j] & 0xFF) + 150 * (bgr[j + 1] & 0xFF) + 77 * (bgr[j + 2] & 0xFF)) >> 8);
+        }
+        return gray;
+    }
+
+    // maps an upright-scaled width x height image onto the displayed one, EXIF orientations 1 to 8
+    private static AffineTransform orientationTransform(int orientation, int width, int height) {
+        return switch (orientation) {
+            case 2 -> new AffineTransform(-1, 0, 0, 1, width, 0);
+            case 3 -> new AffineTransform(-1, 0, 0, -1, width, height);
+            case 4 -> new AffineTransform(1, 0, 0, -1, 0, height);
+            case 5 -> new AffineTransform(0, 1, 1, 0, 0, 0);
+            case 6 -> new AffineTransform(0, 1, -1, 0, height, 0);
+            case 7 -> new AffineTransform(0, -1, -1, 0, height, width);
+            case 8 -> new AffineTransform(0, -1, 1, 0, 0, width);
+            default -> new AffineTransform();
+        };
+    }
+
+    // AffineTransformOp on single band gray is far quicker than drawing through a Graphics2D
+    private static BufferedImage resample(BufferedImage gray, int width, int height, AffineTransform transform) {
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+        return new AffineTransformOp(transform, AffineTransformOp.TYPE_BILINEAR).filter(gray, target);
+    }
+
+    /**
+     * One bit per pixel at Otsu's threshold, which is what Tesseract would compute itself; doing it here mostly
+     * buys a much smaller PNG. Uneven lighting across a photo can wash out a corner, so it is off by default.
+     */
+    static BufferedImage binarize(BufferedImage gray) {
+        byte[] pixels = ((DataBufferByte) gray.getRaster().getDataBuffer()).getData();
+        int[] histogram = new int[256];
+        for (byte pixel : pixels) {
+            histogram[pixel & 0xFF]++;
+        }
+        int threshold = otsuThreshold(histogram, pixels.length);
+
+        int width = gray.getWidth();
+        BufferedImage binary = new BufferedImage(width, gray.getHeight(), BufferedImage.TYPE_BYTE_BINARY);
+        WritableRaster raster = binary.getRaster();
+        int[] row = new int[width];
+        for (int y = 0; y < gray.getHeight(); y++) {
+            int offset = y * width;
+            for (int x = 0; x < width; x++) {
+                row[x] = (pixels[offset + x] & 0xFF) > threshold ? 1 : 0;
+            }
+            raster.setSamples(0, y, width, 1, 0, row);
+        }
+        return binary;
+    }
+
+    private static int otsuThreshold(int[] histogram, int total) {
+        double sum = 0;
+        for (int i = 0; i < 256; i++) {
+            sum += (double) i * histogram[i];
+        }
+        double sumBackground = 0;
+        long background = 0;
+        double best = -1;
+        int threshold = 127;
+        for (int i = 0; i < 256; i++) {
+            background += histogram[i];
+            if (background == 0) continue;
+            long foreground = total - background;
+            if (foreground == 0) break;
+            sumBackground += (double) i * histogram[i];
+            double meanBackground = sumBackground / background;
+            double meanForeground = (sum - sumBackground) / foreground;
+            double between = (double) background * foreground * (meanBackground - meanForeground) * (meanBackground - meanForeground);
+            if (between > best) {
+                best = between;
+                threshold = i;
+            }
+        }
+        return threshold;
+    }
+
+    /**
+     * The orientation tag (0x0112) of a JPEG's Exif block, 1 when there is none or the data is not a JPEG.
+     * Only the markers before the first scan are walked, nothing is decoded.
+     */
+    static int exifOrientation(ByteBuffer data) {
+        ByteBuffer jpeg = data.duplicate().order(ByteOrder.BIG_ENDIAN);
+        int base = jpeg.position();
+        int end = jpeg.limit();
+        if (end - base < 4 || (jpeg.getShort(base) & 0xFFFF) != 0xFFD8) return 1;
+        int pos = base + 2;
+        while (pos + 4 <= end) {
+            if ((jpeg.get(pos) & 0xFF) != 0xFF) return 1;
+            int marker = jpeg.get(pos + 1) & 0xFF;
+            if (marker == 0xFF) {
+                pos++;
+                continue;
+            }
+            if (marker == 0x01 || (marker >= 0xD0 && marker <= 0xD8)) {
+                pos += 2;
+                continue;
+            }
+            if (marker == 0xDA || marker == 0xD9) return 1;
+            int length = jpeg.getShort(pos + 2) & 0xFFFF;
+            int segment = pos + 4;
+            int segmentEnd = Math.min(end, pos + 2 + length);
+            if (marker == 0xE1 && segment + 6 <= segmentEnd
+                    && jpeg.getInt(segment) == 0x45786966 && jpeg.getShort(segment + 4) == 0) {
+                return tiffOrientation(jpeg, segment + 6, segmentEnd);
+            }
+            pos += 2 + length;
+        }
+        return 1;
+    }
+
+    private static int tiffOrientation(ByteBuffer jpeg, int tiff, int end) {
+        if (tiff + 8 > end) return 1;
+        ByteBuffer header = jpeg.duplicate();
+        short byteOrder = header.getShort(tiff);
+        if (byteOrder == 0x4949) {
+            header.order(ByteOrder.LITTLE_ENDIAN);
+        } else if (byteOrder != 0x4D4D) {
+            return 1;
+        }
+        long ifd = tiff + (header.getInt(tiff + 4) & 0xFFFFFFFFL);
+        if (ifd + 2 > end) return 1;
+        int entries = header.getShort((int) ifd) & 0xFFFF;
+        for (int i = 0; i < entries; i++) {
+            int entry = (int) ifd + 2 + i * 12;
+            if (entry + 12 > end) break;
+            if ((header.getShort(entry) & 0xFFFF) == 0x0112) {
+                int orientation = header.getShort(entry + 8) & 0xFFFF;
+                return orientation >= 1 && orientation <= 8 ? orientation : 1;
+            }
+        }
+        return 1;
+    }
+
+    private static byte[] encodePng(BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (!ImageIO.write(image, "png", out)) {
+            throw new IOException("no PNG writer available");
+        }
+        return out.toByteArray();
+    }
+
+    private static String pngName(String filename) {
+        if (filename == null || filename.isBlank()) return "receipt.png";
+        int dot = filename.lastIndexOf('.');
+        return (dot > 0 ? filename.substring(0, dot) : filename) + ".png";
+    }
+}
@@ -0,0 +1,96 @@
+package com.Sentinel.Reimbursement_Service.Service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+@Service
+public class ReceiptSpooler {
+
+    private static final int KB = 1024;
+
+    // permits are KiB so a budget of several GiB still fits in an int
+    private final int budgetKb;
+    private final Semaphore budget;
+
+    @Value("${receipt.buffer.in-memory-threshold-bytes:1048576}")
+    private long inMemoryThresholdBytes;
+
+    @Value("${receipt.buffer.acquire-timeout-ms:10000}")
+    private long acquireTimeoutMs;
+
+    public ReceiptSpooler(@Value("${receipt.buffer.memory-budget-mb:256}") int budgetMb) {
+        this.budgetKb = budgetMb * KB;
+        this.budget = new Semaphore(budgetKb, true);
+    }
+
+    /**
+     * Copies the upload once into a heap array (small receipts) or a memory-mapped temp file, waiting
+     * until the receipts currently being processed leave enough of the memory budget. Small receipts stay on
+     * the heap because a direct buffer's memory only comes back when the GC gets to it, long after close()
+     * returned its bytes to the budget.
+     */
+    public ReceiptBuffer spool(MultipartFile file) throws IOException, InterruptedException {
+        long size = file.getSize();
+        if (size <= 0) {
+            throw new IllegalArgumentException("File is empty");
+        }
+        int permits = (int) Math.min(Integer.MAX_VALUE, (size + KB - 1) / KB);
+        if (size > Integer.MAX_VALUE || permits > budgetKb) {
+            throw new IllegalArgumentException("Receipt is larger than the receipt memory budget");
+        }
+        if (!budget.tryAcquire(permits, acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+            throw new RuntimeException("Too many receipts in flight, try again later");
+        }
+        Runnable release = () -> budget.release(permits);
+        try {
+            return size <= inMemoryThresholdBytes ? spoolHeap(file, (int) size, release) : spoolMapped(file, release);
+        } catch (IOException | RuntimeException e) {
+            release.run();
+            throw e;
+        }
+    }
+
+    public int availableBudgetKb() {
+        return budget.availablePermits();
+    }
+
+    private ReceiptBuffer spoolHeap(MultipartFile file, int size, Runnable release) throws IOException {
+        byte[] bytes = new byte[size];
+        int read;
+        try (InputStream in = file.getInputStream()) {
+            read = in.readNBytes(bytes, 0, size);
+        }
+        return new ReceiptBuffer(ByteBuffer.wrap(bytes, 0, read), file.getOriginalFilename(), file.getContentType(), null, release);
+    }
+
+    private ReceiptBuffer spoolMapped(MultipartFile file, Runnable release) throws IOException {
+        Path path = Files.createTempFile("receipt-", ".spool");
+        try {
+            try (InputStream in = file.getInputStream()) {
+                Files.copy(in, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+            // the mapping stays valid after the channel is closed
+            MappedByteBuffer mapped;
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            return new ReceiptBuffer(mapped, file.getOriginalFilename(), file.getContentType(), path, release);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(path);
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.Sentinel.Reimbursement_Service.Service;
+
+import com.Sentinel.Reimbursement_Service.DTO.JobState;
+import com.Sentinel.Reimbursement_Service.Entity.ReimbursementJob;
+import com.Sentinel.Reimbursement_Service.Repository.ReimbursementJobRepo;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ReimbursementJobService {
+
+    private final ReimbursementJobRepo jobRepo;
+
+    private final String workerId = System.getenv().getOrDefault("HOSTNAME", "worker") + "-" + UUID.randomUUID();
+
+    @Value("${reimbursement.jobs.lease-seconds:300}")
+    private long leaseSeconds;
+
+    @Value("${reimbursement.jobs.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${reimbursement.jobs.backoff-base-seconds:10}")
+    private long backoffBaseSeconds;
+
+    @Value("${reimbursement.jobs.backoff-max-seconds:900}")
+    private long backoffMaxSeconds;
+
+    @Transactional
+    public ReimbursementJob enqueue(String requestId, MultipartFile file) throws IOException {
+        ReimbursementJob job = new ReimbursementJob();
+        job.setReimbursementRequestId(requestId);
+        job.setReceipt(file.getBytes());
+        job.setReceiptName(file.getOriginalFilename());
+        job.setReceiptContentType(file.getContentType());
+        job.setState(JobState.QUEUED);
+        job.setNextAttemptAt(LocalDateTime.now());
+        return jobRepo.save(job);
+    }
+
+    // rows are locked with SKIP LOCKED only for the duration of this transaction, the lease keeps other
+    // pods away afterwards and lets them take the job over if this pod dies before finishing it
+    @Transactional
+    public List<ReimbursementJob> claim(int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        List<ReimbursementJob> jobs = jobRepo.lockClaimable(now, limit);
+        for (ReimbursementJob job : jobs) {
+            job.setState(JobState.RUNNING);
+            job.setLockedBy(workerId);
+            job.setLockedUntil(now.plusSeconds(leaseSeconds));
+            job.setAttempts(job.getAttempts() + 1);
+        }
+        return jobRepo.saveAll(jobs);
+    }
+
+    /**
+     * Extends the lease of a claimed attempt. Returns false when this worker no longer holds it, the job was
+     * taken over after the lease ran out and the attempt must not write anything else.
+     */
+    @Transactional
+    public boolean renewLease(ReimbursementJob job) {
+        return jobRepo.renewLease(job.getId(), workerId, job.getAttempts(), LocalDateTime.now().plusSeconds(leaseSeconds)) == 1;
+    }
+
+    // ignored when the attempt lost its lease, the worker that took the job over decides its outcome
+    @Transactional
+    public boolean markDone(ReimbursementJob job) {
+        return applied(job, JobState.DONE, jobRepo.finish(job.getId(), workerId, job.getAttempts(), JobState.DONE, null));
+    }
+
+    /**
+     * Puts the job back in the queue with exponential backoff, or marks it dead once it ran out of attempts.
+     * Returns true when the job will not be retried; false as well when the attempt lost its lease.
+     */
+    @Transactional
+    public boolean markFailed(ReimbursementJob job, String error) {
+        if (job.getAttempts() >= maxAttempts) {
+            return applied(job, JobState.DEAD, jobRepo.finish(job.getId(), workerId, job.getAttempts(), JobState.DEAD, error));
+        }
+        long delay = Math.min(backoffMaxSeconds, backoffBaseSeconds << Math.min(20, job.getAttempts() - 1));
+        applied(job, JobState.QUEUED, jobRepo.requeue(job.getId(), workerId, job.getAttempts(), error,
+                LocalDateTime.now().plusSeconds(delay)));
+        return false;
+    }
+
+    private boolean applied(ReimbursementJob job, JobState state, int updated) {
+        if (updated == 0) {
+            log.warn("job {} attempt {} lost its lease, not marking it {}", job.getId(), job.getAttempts(), state);
+        }
+        return updated == 1;
+    }
+}
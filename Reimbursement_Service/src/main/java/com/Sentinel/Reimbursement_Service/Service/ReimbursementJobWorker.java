@@ -0,0 +1,124 @@
+package com.Sentinel.Reimbursement_Service.Service;
+
+import com.Sentinel.Reimbursement_Service.DTO.ReceiptExtraction;
+import com.Sentinel.Reimbursement_Service.DTO.Status;
+import com.Sentinel.Reimbursement_Service.Entity.ReimbursementJob;
+import com.Sentinel.Reimbursement_Service.Entity.ReimbursementRequest;
+import com.Sentinel.Reimbursement_Service.FraudDetectionEngine.FraudContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ReimbursementJobWorker {
+
+    private final ReimbursementJobService jobService;
+    private final ReimbursementService reimbursementService;
+    private final ExecutorService jobExecutor;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    // attempts of this pod whose lease the heartbeat keeps extending, flagged once a renewal finds it taken over
+    private final Map<String, Lease> running = new ConcurrentHashMap<>();
+
+    @Value("${reimbursement.jobs.enabled:true}")
+    private boolean enabled;
+
+    @Value("${reimbursement.jobs.workers:4}")
+    private int workers;
+
+    @Scheduled(fixedDelayString = "${reimbursement.jobs.poll-interval-ms:1000}")
+    public void poll() {
+        if (!enabled) return;
+        int free = workers - inFlight.get();
+        if (free <= 0) return;
+
+        List<ReimbursementJob> jobs = jobService.claim(free);
+        for (ReimbursementJob job : jobs) {
+            inFlight.incrementAndGet();
+            Lease lease = new Lease(job, new AtomicBoolean());
+            running.put(job.getId(), lease);
+            jobExecutor.submit(() -> {
+                try {
+                    process(lease);
+                } finally {
+                    running.remove(job.getId());
+                    inFlight.decrementAndGet();
+                }
+            });
+        }
+    }
+
+    // well inside reimbursement.jobs.lease-seconds, so a slow OCR or Gemini call does not let another pod take the job
+    @Scheduled(fixedDelayString = "${reimbursement.jobs.heartbeat-ms:60000}")
+    public void heartbeat() {
+        for (Lease lease : running.values()) {
+            try {
+                if (!lease.lost().get() && !jobService.renewLease(lease.job())) {
+                    lease.lost().set(true);
+                    log.warn("lease on job {} was taken over, abandoning attempt {}", lease.job().getId(), lease.job().getAttempts());
+                }
+            } catch (RuntimeException e) {
+                log.warn("could not renew the lease on job {}", lease.job().getId(), e);
+            }
+        }
+    }
+
+    // every stage is skipped when the request already got past it, so a retried or taken over job
+    // resumes where the previous attempt stopped instead of uploading the receipt twice
+    // the lease is checked between stages; completeRequest itself is idempotent for the stage that may still overlap
+    void process(Lease lease) {
+        ReimbursementJob job = lease.job();
+        String requestId = job.getReimbursementRequestId();
+        try {
+            ReimbursementRequest request = reimbursementService.getRequest(requestId);
+            if (request.getStatus() != Status.COMPLETED) {
+                ReceiptBuffer receipt = ReceiptBuffer.wrap(job.getReceipt(), job.getReceiptName(), job.getReceiptContentType());
+                if (request.getReceiptURL() == null) {
+                    lease.check();
+                    reimbursementService.uploadReceipt(request, receipt);
+                }
+                lease.check();
+                ReceiptExtraction extraction = reimbursementService.runExtraction(request, receipt);
+                lease.check();
+                reimbursementService.completeRequest(request, extraction.data(), new FraudContext(receipt, extraction.ocrText()));
+            }
+            if (jobService.markDone(job)) {
+                log.info("request {} processed after {} attempt(s)", requestId, job.getAttempts());
+            }
+        } catch (LeaseLostException e) {
+            log.warn("attempt {} for request {} stopped: {}", job.getAttempts(), requestId, e.getMessage());
+        } catch (Exception e) {
+            log.warn("attempt {} for request {} failed", job.getAttempts(), requestId, e);
+            if (jobService.markFailed(job, String.valueOf(e.getMessage()))) {
+                log.error("giving up on request {} after {} attempts", requestId, job.getAttempts());
+                reimbursementService.failRequest(requestId, e.getMessage());
+            }
+        }
+    }
+
+    record Lease(ReimbursementJob job, AtomicBoolean lost) {
+        void check() {
+            if (lost.get()) {
+                throw new LeaseLostException("lease on job " + job.getId() + " was taken over");
+            }
+        }
+    }
+
+    static class LeaseLostException extends RuntimeException {
+        LeaseLostException(String message) {
+            super(message);
+        }
+    }
+}
@@ -1,22 +1,33 @@
 package com.Sentinel.Reimbursement_Service.Service;
 
+import com.Sentinel.Reimbursement_Service.Configuration.RequestDeadline;
 import com.Sentinel.Reimbursement_Service.DTO.*;
 import com.Sentinel.Reimbursement_Service.Entity.ReimbursementRequest;
+import com.Sentinel.Reimbursement_Service.Entity.ReimbursementRequestArchive;
 import com.Sentinel.Reimbursement_Service.Entity.RequestHistory;
+import com.Sentinel.Reimbursement_Service.FraudDetectionEngine.FraudContext;
 import com.Sentinel.Reimbursement_Service.FraudDetectionEngine.FraudDetectionService;
+import com.Sentinel.Reimbursement_Service.FraudDetectionEngine.HashIndexService;
 import com.Sentinel.Reimbursement_Service.FraudDetectionEngine.PerceptualHashService;
 import com.Sentinel.Reimbursement_Service.FraudDetectionEngine.TextHashService;
+import com.Sentinel.Reimbursement_Service.Repository.ReimbursementArchiveRepo;
 import com.Sentinel.Reimbursement_Service.Repository.ReimbursementHistoryRepo;
 import com.Sentinel.Reimbursement_Service.Repository.ReimbursementRepo;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
 
 @Service
 @Slf4j
@@ -31,6 +42,20 @@ public class ReimbursementService {
     private final PerceptualHashService perceptualHashService;
     private final TextHashService textHashService;
     private final ReimbursementHistoryRepo historyRepo;
+    private final HashIndexService hashIndexService;
+    private final ReimbursementJobService jobService;
+    private final ExecutorService ingestExecutor;
+    private final ReceiptSpooler receiptSpooler;
+    private final ExtractionCache extractionCache;
+    private final SpendLedger spendLedger;
+    private final OcrTextStore ocrTextStore;
+    private final ReimbursementArchiveRepo archiveRepo;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${reimbursement.page.max-size:100}")
+    private int maxPageSize;
+
+    private static final String OCR_OPTIONS = "{\"languages\": [\"eng\"]}";
 
     @Transactional
     public ReimbursementRequest saveInitialRequest(ReimbursementRequestDTO data, String receiptUrl) {
@@ -47,48 +72,220 @@ public class ReimbursementService {
         return repo.save(request);
     }
 
-    @Transactional(rollbackFor = Exception.class)
+    // upload, OCR (+ extraction + text hash, both through the extraction cache) and the perceptual hash don't depend on each other, so they run
+    // side by side and only join before anything is persisted; only persist holds a database connection
     public String createRequest(ReimbursementRequestDTO data, MultipartFile file) throws Exception {
+        log.info("initial Request received");
+        try (ReceiptBuffer receipt = receiptSpooler.spool(file)) {
+            PreparedReceipt prepared = prepare(receipt);
+            try {
+                return summary(transactionTemplate.execute(status -> persist(data, prepared)));
+            } catch (Exception e) {
+                discard(prepared);
+                log.error(e.getMessage());
+                throw new RuntimeException(e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * The stages of createRequest that do not touch the request tables. Nothing uploaded is left behind when
+     * this fails; once it succeeded the caller either persists the result or discards it.
+     */
+    public PreparedReceipt prepare(ReceiptBuffer receipt) {
+        CompletableFuture<String> upload = async(() -> storageService.upload(receipt));
+        CompletableFuture<ReceiptExtraction> extraction = async(() -> extractionCache.getOrCompute(receipt.sha256(), () -> {
+            String ocrResult = ocrService.extractText(receipt, OCR_OPTIONS);
+            return new ReceiptExtraction(ocrResult, aiService.extractOCRData(ocrResult));
+        }));
+        CompletableFuture<Long> textHash = extraction.thenApply(e -> textHashService.generateHash(e.ocrText()));
+        CompletableFuture<Long> imagePhash = async(() -> perceptualHashService.generatePhash(receipt));
         String url = null;
         try {
-            log.info("initial Request received");
-            url = storageService.upload(file);
+            url = await(upload);
             log.info("file upload to cloudinary finished");
-            ReimbursementRequest request = saveInitialRequest(data, url);
-            log.info("initial request saved");
-            String options = "{\"languages\": [\"eng\"]}";
-            String ocrResult = ocrService.extractText(file, options);
-            request.setOcrData(ocrResult);
+            ReceiptExtraction receiptExtraction = await(extraction);
             log.info("ocr result received");
-            System.out.print(ocrResult);
-            OCRdata extractedData = aiService.extractOCRData(ocrResult);
-            log.info(extractedData.toString());
-            ResponseDTO response = fraudDetectionService.runEngine(request, extractedData, ocrResult, file);
-            FraudLevel level = resolveFraudLevel(response.getFraudScore());
-            request.setFraudScore(response.getFraudScore());
-            request.setFraudLevel(level);
-            request.setStatus(Status.COMPLETED);
-            request.setFraudDescription(response.getFinalDescription());
-            repo.save(request);
-            if(level.equals(FraudLevel.LOW) || level.equals(FraudLevel.MEDIUM)) {
-                saveToHistory(request, extractedData, ocrResult, file);
-            }
-            return "fraudLevel : " + request.getFraudLevel() + " " + request.getFraudDescription();
+            log.info(receiptExtraction.data().toString());
+            return new PreparedReceipt(receipt, url, receiptExtraction, await(textHash), await(imagePhash));
         } catch (Exception e) {
-            if(url != null) {
-                try {
-                    storageService.delete(url);
-                    log.warn("Cloudinary image deleted due to failure");
-                } catch (Exception ex) {
-                    log.warn("Failed to delete uploaded cloudinary image", ex);
-                }
+            // let every stage settle first: a failed OCR can finish before the upload does, and nothing may
+            // still be reading the receipt once it goes back to the spooler's budget
+            settle(upload, extraction, textHash, imagePhash);
+            if(url == null) {
+                url = uploadedUrl(upload);
             }
+            deleteUpload(url);
             log.error(e.getMessage());
             throw new RuntimeException(e.getMessage());
         }
     }
 
-    private void saveToHistory(ReimbursementRequest request, OCRdata extracted, String ocrResult, MultipartFile file) {
+    // saves the request and runs the fraud engine on it; history of everything committed before is visible to the checks
+    @Transactional(rollbackFor = Exception.class)
+    public ReimbursementRequest persist(ReimbursementRequestDTO data, PreparedReceipt prepared) {
+        ReimbursementRequest request = saveInitialRequest(data, prepared.receiptUrl());
+        String ocrResult = prepared.extraction().ocrText();
+        request.setOcrTextHash(ocrTextStore.save(ocrResult));
+        log.info("initial request saved");
+        FraudContext context = new FraudContext(prepared.receipt(), ocrResult);
+        context.setTextHash(prepared.textHash());
+        context.setImagePhash(prepared.imagePhash());
+        completeRequest(request, prepared.extraction().data(), context);
+        return request;
+    }
+
+    public void discard(PreparedReceipt prepared) {
+        deleteUpload(prepared.receiptUrl());
+    }
+
+    private void deleteUpload(String url) {
+        if(url != null) {
+            try {
+                storageService.delete(url);
+                log.warn("Cloudinary image deleted due to failure");
+            } catch (Exception ex) {
+                log.warn("Failed to delete uploaded cloudinary image", ex);
+            }
+        }
+    }
+
+    private <T> CompletableFuture<T> async(Callable<T> task) {
+        Callable<T> withDeadline = RequestDeadline.propagate(task);
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return withDeadline.call();
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, ingestExecutor);
+    }
+
+    private static <T> T await(CompletableFuture<T> future) throws Exception {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof Exception cause) throw cause;
+            throw e;
+        }
+    }
+
+    private static void settle(CompletableFuture<?>... futures) {
+        try {
+            CompletableFuture.allOf(futures).join();
+        } catch (Exception ignored) {
+            // failures are handled by the caller
+        }
+    }
+
+    private static String uploadedUrl(CompletableFuture<String> upload) {
+        try {
+            return upload.join();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    @Transactional(rollbackFor = Exception.class)
+    public String submitAsync(ReimbursementRequestDTO data, MultipartFile file) throws Exception {
+        if(file.isEmpty()) {
+            throw new IllegalArgumentException("File is empty");
+        }
+        ReimbursementRequest request = saveInitialRequest(data, null);
+        jobService.enqueue(request.getId(), file);
+        log.info("request {} queued for processing", request.getId());
+        return request.getId();
+    }
+
+    // stages used by ReimbursementJobWorker, each one persists its progress through the request status
+
+    public ReimbursementRequest getRequest(String id) {
+        return repo.findById(id).orElseThrow(() -> new RuntimeException("Reimbursement request not found"));
+    }
+
+    // the asset is deleted again when the URL cannot be saved, the retry uploads a fresh one
+    public void uploadReceipt(ReimbursementRequest request, ReceiptBuffer receipt) throws Exception {
+        String url = storageService.upload(receipt);
+        try {
+            request.setReceiptURL(url);
+            request.setStatus(Status.UPLOADED);
+            repo.save(request);
+        } catch (RuntimeException e) {
+            request.setReceiptURL(null);
+            deleteUpload(url);
+            throw e;
+        }
+    }
+
+    // OCR already stored by an earlier attempt is reused when the cache has nothing for this receipt
+    public ReceiptExtraction runExtraction(ReimbursementRequest request, ReceiptBuffer receipt) throws Exception {
+        ReceiptExtraction extraction = extractionCache.getOrCompute(receipt.sha256(), () -> {
+            String ocrResult = request.getOcrTextHash() != null
+                    ? ocrTextStore.load(request.getOcrTextHash())
+                    : runOcr(request, receipt);
+            return new ReceiptExtraction(ocrResult, aiService.extractOCRData(ocrResult));
+        });
+        request.setOcrTextHash(ocrTextStore.save(extraction.ocrText()));
+        request.setStatus(Status.EXTRACTED);
+        repo.save(request);
+        return extraction;
+    }
+
+    private String runOcr(ReimbursementRequest request, ReceiptBuffer receipt) throws Exception {
+        String ocrResult = ocrService.extractText(receipt, OCR_OPTIONS);
+        request.setOcrTextHash(ocrTextStore.save(ocrResult));
+        request.setStatus(Status.OCR_COMPLETED);
+        repo.save(request);
+        return ocrResult;
+    }
+
+    /**
+     * Scores the request and writes its history. The row is locked first and a request that another attempt
+     * already completed is returned as it is, so overlapping job attempts never write history twice.
+     */
+    @Transactional
+    public String completeRequest(ReimbursementRequest pending, OCRdata extractedData, FraudContext context) {
+        ReimbursementRequest request = repo.lockById(pending.getId())
+                .orElseThrow(() -> new RuntimeException("Reimbursement request not found"));
+        if (request.getStatus() == Status.COMPLETED) {
+            log.info("request {} was already completed by another attempt", request.getId());
+            return summary(request);
+        }
+        ResponseDTO response = fraudDetectionService.runEngine(request, extractedData, context);
+        FraudLevel level = resolveFraudLevel(response.getFraudScore());
+        request.setFraudScore(response.getFraudScore());
+        request.setFraudLevel(level);
+        request.setStatus(Status.COMPLETED);
+        request.setFraudDescription(response.getFinalDescription());
+        repo.save(request);
+        if(level.equals(FraudLevel.LOW) || level.equals(FraudLevel.MEDIUM)) {
+            saveToHistory(request, extractedData, context);
+        }
+        return summary(request);
+    }
+
+    private static String summary(ReimbursementRequest request) {
+        return "fraudLevel : " + request.getFraudLevel() + " " + request.getFraudDescription();
+    }
+
+    public void failRequest(String id, String reason) {
+        ReimbursementRequest request = repo.findById(id).orElse(null);
+        if(request == null) return;
+        if(request.getReceiptURL() != null) {
+            try {
+                storageService.delete(request.getReceiptURL());
+                request.setReceiptURL(null);
+                log.warn("Cloudinary image deleted due to failure");
+            } catch (Exception ex) {
+                log.warn("Failed to delete uploaded cloudinary image", ex);
+            }
+        }
+        request.setStatus(Status.FAILED);
+        request.setFraudDescription(reason);
+        repo.save(request);
+    }
+
+    private void saveToHistory(ReimbursementRequest request, OCRdata extracted, FraudContext context) {
         RequestHistory history = new RequestHistory();
         history.setReimbursementRequestId(request.getId());
         history.setEmployeeId(request.getEmployeeId());
@@ -96,9 +293,10 @@ public class ReimbursementService {
         history.setExpenseDate(request.getExpenseDate());
         history.setVendorName(request.getVendorName());
         history.setInvoiceNumber(extracted.getBillNumber());
-        history.setImagePhash(perceptualHashService.generatePhash(file));
-        history.setTextHash(textHashService.generateHash(ocrResult));
-        historyRepo.save(history);
+        history.setImagePhash(perceptualHashService.generatePhash(context));
+        history.setTextHash(textHashService.generateHash(context));
+        hashIndexService.indexAfterCommit(historyRepo.save(history));
+        spendLedger.record(history);
     }
 
     private FraudLevel resolveFraudLevel(int fraudPoints) {
@@ -108,45 +306,71 @@ public class ReimbursementService {
         return FraudLevel.CONFIRMED;
     }
 
+    // unpaged listings kept for existing clients, they read the same projection as the pages
     public List<AdminReimbursementDTO> getAllRequests() {
-        List<ReimbursementRequest> list = repo.findAll();
-        List<AdminReimbursementDTO> result = new ArrayList<>();
-        for(ReimbursementRequest stored : list) {
-            AdminReimbursementDTO cur = new AdminReimbursementDTO();
-            cur.setId(stored.getId());
-            cur.setAmount(stored.getAmount());
-            cur.setCategory(stored.getCategory());
-            cur.setStatus(stored.getStatus());
-            cur.setEmployeeId(stored.getEmployeeId());
-            cur.setExpenseDate(stored.getExpenseDate());
-            cur.setVendorName(stored.getVendorName());
-            cur.setFraudLevel(stored.getFraudLevel());
-            cur.setFraudScore(stored.getFraudScore());
-            cur.setCreatedAt(stored.getCreatedAt());
-            cur.setDescription(stored.getFraudDescription());
-            result.add(cur);
-        }
-        return result;
+        return repo.findSummaries(new RequestFilter(null, null, null, null, null), null, Integer.MAX_VALUE);
     }
 
     public List<AdminReimbursementDTO> getRequestsOfUser(String id) {
-        List<ReimbursementRequest> list = repo.findByEmployeeId(id);
-        List<AdminReimbursementDTO> result = new ArrayList<>();
-        for(ReimbursementRequest stored : list) {
-            AdminReimbursementDTO cur = new AdminReimbursementDTO();
-            cur.setId(stored.getId());
-            cur.setAmount(stored.getAmount());
-            cur.setCategory(stored.getCategory());
-            cur.setStatus(stored.getStatus());
-            cur.setEmployeeId(stored.getEmployeeId());
-            cur.setExpenseDate(stored.getExpenseDate());
-            cur.setVendorName(stored.getVendorName());
-            cur.setFraudLevel(stored.getFraudLevel());
-            cur.setFraudScore(stored.getFraudScore());
-            cur.setCreatedAt(stored.getCreatedAt());
-            cur.setDescription(stored.getFraudDescription());
-            result.add(cur);
+        return repo.findSummaries(new RequestFilter(id, null, null, null, null), null, Integer.MAX_VALUE);
+    }
+
+    /**
+     * One page of requests, newest first. The cursor is the nextCursor of the previous page, null for the first one.
+     */
+    public RequestPage getRequestPage(RequestFilter filter, String cursor, int size) {
+        int limit = Math.max(1, Math.min(size, maxPageSize));
+        RequestCursor after = cursor == null || cursor.isBlank() ? null : RequestCursor.decode(cursor);
+        // one extra row tells whether there is a next page without a count query
+        List<AdminReimbursementDTO> rows = repo.findSummaries(filter, after, limit + 1);
+        if (rows.size() <= limit) {
+            return new RequestPage(rows, null);
         }
-        return result;
+        List<AdminReimbursementDTO> items = rows.subList(0, limit);
+        AdminReimbursementDTO last = items.get(limit - 1);
+        return new RequestPage(new ArrayList<>(items), new RequestCursor(last.getCreatedAt(), last.getId()).encode());
+    }
+
+    // requests moved out by RequestArchiver are still answered, from the archive table
+    public AdminReimbursementDTO getRequestStatus(String id) {
+        return repo.findById(id)
+                .map(this::toAdminDTO)
+                .or(() -> archiveRepo.findById(id).map(this::toAdminDTO))
+                .orElseThrow(() -> new RuntimeException("Reimbursement request not found"));
+    }
+
+    private AdminReimbursementDTO toAdminDTO(ReimbursementRequest stored) {
+        AdminReimbursementDTO cur = new AdminReimbursementDTO();
+        cur.setId(stored.getId());
+        cur.setAmount(stored.getAmount());
+        cur.setCategory(stored.getCategory());
+        cur.setStatus(stored.getStatus());
+        cur.setEmployeeId(stored.getEmployeeId());
+        cur.setExpenseDate(stored.getExpenseDate());
+        cur.setVendorName(stored.getVendorName());
+        cur.setFraudLevel(stored.getFraudLevel());
+        cur.setFraudScore(stored.getFraudScore());
+        cur.setCreatedAt(stored.getCreatedAt());
+        cur.setDescription(stored.getFraudDescription());
+        return cur;
+    }
+
+    private AdminReimbursementDTO toAdminDTO(ReimbursementRequestArchive archived) {
+        AdminReimbursementDTO cur = new AdminReimbursementDTO();
+        cur.setId(archived.getId());
+        cur.setAmount(archived.getAmount());
+        cur.setCategory(archived.getCategory());
+        cur.setStatus(archived.getStatus());
+        cur.setEmployeeId(archived.getEmployeeId());
+        cur.setExpenseDate(archived.getExpenseDate());
+        cur.setVendorName(archived.getVendorName());
+        cur.setFraudLevel(archived.getFraudLevel());
+        cur.setFraudScore(archived.getFraudScore());
+        cur.setCreatedAt(archived.getCreatedAt());
+        cur.setDescription(archived.getFraudDescription());
+        return cur;
     }
+
+    public record PreparedReceipt(ReceiptBuffer receipt, String receiptUrl, ReceiptExtraction extraction,
+                                  Long textHash, Long imagePhash) {}
 }
@@ -0,0 +1,89 @@
+package com.Sentinel.Reimbursement_Service.Service;
+
+import com.Sentinel.Reimbursement_Service.DTO.Status;
+import com.Sentinel.Reimbursement_Service.Repository.ReimbursementRepo;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Moves finished requests older than reimbursement.archive.after-days out of reimbursement_request into
+ * reimbursement_request_archive, one batch per transaction, so the table every listing and fraud check reads
+ * only holds the recent ones. Archived requests are still answered by the status endpoint, but the listings and the
+ * export only read the live table, so this stays off unless reimbursement.archive.enabled is set. OCR text that
+ * only archived requests pointed at is removed with the batch.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class RequestArchiver {
+
+    private static final Set<Status> FINISHED = EnumSet.of(Status.COMPLETED, Status.FAILED);
+    private static final List<String> TABLES = List.of("reimbursement_request", "reimbursement_request_archive", "ocr_text");
+
+    private final ReimbursementRepo repo;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${reimbursement.archive.enabled:false}")
+    private boolean enabled;
+
+    @Value("${reimbursement.archive.after-days:365}")
+    private long afterDays;
+
+    @Value("${reimbursement.archive.batch-size:1000}")
+    private int batchSize;
+
+    private final Map<String, AtomicLong> tableBytes = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        for (String table : TABLES) {
+            AtomicLong bytes = tableBytes.computeIfAbsent(table, t -> new AtomicLong());
+            meterRegistry.gauge("reimbursement.table.bytes", Tags.of("table", table), bytes, AtomicLong::get);
+        }
+    }
+
+    @Scheduled(initialDelayString = "${reimbursement.archive.initial-delay-ms:300000}",
+            fixedDelayString = "${reimbursement.archive.interval-ms:86400000}")
+    public void archive() {
+        if (enabled) {
+            long start = System.currentTimeMillis();
+            LocalDateTime cutoff = LocalDateTime.now().minusDays(afterDays);
+            long moved = 0;
+            int batch;
+            do {
+                batch = transactionTemplate.execute(status -> repo.archiveBatch(cutoff, FINISHED, batchSize));
+                moved += batch;
+            } while (batch == batchSize);
+            meterRegistry.counter("reimbursement.archive.moved").increment(moved);
+            log.info("archived {} requests created before {} in {} ms", moved, cutoff, System.currentTimeMillis() - start);
+        }
+        refreshTableSizes();
+    }
+
+    // sampled here rather than on every scrape, pg_total_relation_size walks the files of every index
+    private void refreshTableSizes() {
+        for (String table : TABLES) {
+            try {
+                tableBytes.get(table).set(repo.tableBytes(table));
+            } catch (RuntimeException e) {
+                log.warn("could not read the size of {}", table, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.Sentinel.Reimbursement_Service.Service;
+
+import com.Sentinel.Reimbursement_Service.DTO.AdminReimbursementDTO;
+import com.Sentinel.Reimbursement_Service.DTO.FraudLevel;
+import com.Sentinel.Reimbursement_Service.DTO.Status;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Streams reimbursement requests straight from a forward-only cursor to the response, one row at a time, so the
+ * heap holds at most one fetch of rows no matter how large the table is. The OCR text is never selected.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class RequestExportService {
+
+    private static final String COLUMNS = """
+            SELECT id, employee_id, amount, vendor_name, category, expense_date, fraud_score, fraud_level, status,
+                   fraud_description, created_at
+            FROM reimbursement_request
+            """;
+    private static final String ORDER = " ORDER BY created_at, id";
+
+    private static final String CSV_HEADER = "id,employeeId,amount,vendorName,category,expenseDate,fraudScore,"
+            + "fraudLevel,status,description,createdAt";
+
+    public enum Format { NDJSON, CSV }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final JsonCodec jsonCodec;
+
+    @Value("${reimbursement.export.fetch-size:500}")
+    private int fetchSize;
+
+    // every running export holds a database connection until the client has read everything
+    @Value("${reimbursement.export.max-concurrent:2}")
+    private int maxConcurrent;
+
+    private Semaphore running;
+
+    @PostConstruct
+    public void init() {
+        running = new Semaphore(maxConcurrent);
+    }
+
+    /**
+     * Writes every request, or only those of one employee, and returns the number of rows written. PostgreSQL only
+     * honours the fetch size inside a transaction, otherwise the driver reads the whole result before returning.
+     */
+    public long export(String employeeId, Format format, OutputStream out) throws IOException {
+        if (!running.tryAcquire()) {
+            throw new RuntimeException("Too many exports running, try again later");
+        }
+        long start = System.currentTimeMillis();
+        try {
+            RowWriter writer = format == Format.CSV ? new CsvWriter(out) : new NdjsonWriter(out, jsonCodec);
+            TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+            readOnly.setReadOnly(true);
+            long[] rows = new long[1];
+            try {
+                readOnly.executeWithoutResult(status -> jdbcTemplate.query(con -> {
+                    String sql = COLUMNS + (employeeId != null ? " WHERE employee_id = ?" : "") + ORDER;
+                    PreparedStatement statement = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                    statement.setFetchSize(fetchSize);
+                    if (employeeId != null) {
+                        statement.setString(1, employeeId);
+                    }
+                    return statement;
+                }, (RowCallbackHandler) rs -> {
+                    try {
+                        writer.write(toAdminDTO(rs));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    rows[0]++;
+                }));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            writer.finish();
+            log.info("exported {} requests as {} in {} ms", rows[0], format, System.currentTimeMillis() - start);
+            return rows[0];
+        } finally {
+            running.release();
+        }
+    }
+
+    static AdminReimbursementDTO toAdminDTO(ResultSet rs) throws SQLException {
+        String fraudLevel = rs.getString("fraud_level");
+        String status = rs.getString("status");
+        Timestamp createdAt = rs.getTimestamp("created_at");
+        return new AdminReimbursementDTO(
+                rs.getString("id"),
+                rs.getString("employee_id"),
+                rs.getDouble("amount"),
+                rs.getString("vendor_name"),
+                rs.getString("category"),
+                rs.getObject("expense_date", LocalDate.class),
+                rs.getInt("fraud_score"),
+                fraudLevel == null ? null : FraudLevel.valueOf(fraudLevel),
+                status == null ? null : Status.valueOf(status),
+                rs.getString("fraud_description"),
+                createdAt == null ? null : createdAt.toLocalDateTime());
+    }
+
+    private interface RowWriter {
+        void write(AdminReimbursementDTO row) throws IOException;
+
+        void finish() throws IOException;
+    }
+
+    private static final class NdjsonWriter implements RowWriter {
+        private final JsonGenerator generator;
+        private final ObjectWriter objectWriter;
+
+        NdjsonWriter(OutputStream out, JsonCodec jsonCodec) throws IOException {
+            this.generator = jsonCodec.mapper().getFactory().createGenerator(out);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            // the servlet buffer flushes on its own once it is full, flushing every row would mean one packet per row
+            this.objectWriter = jsonCodec.mapper().writerFor(AdminReimbursementDTO.class)
+                    .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        }
+
+        @Override
+        public void write(AdminReimbursementDTO row) throws IOException {
+            objectWriter.writeValue(generator, row);
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            generator.flush();
+        }
+    }
+
+    private static final class CsvWriter implements RowWriter {
+        private final Writer out;
+
+        CsvWriter(OutputStream out) throws IOException {
+            this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            this.out.write(CSV_HEADER);
+            this.out.write("\r\n");
+        }
+
+        @Override
+        public void write(AdminReimbursementDTO row) throws IOException {
+            out.write(text(row.getId()));
+            out.write(',');
+            out.write(text(row.getEmployeeId()));
+            out.write(',');
+            out.write(String.valueOf(row.getAmount()));
+            out.write(',');
+            out.write(text(row.getVendorName()));
+            out.write(',');
+            out.write(text(row.getCategory()));
+            out.write(',');
+            out.write(String.valueOf(row.getExpenseDate()));
+            out.write(',');
+            out.write(Integer.toString(row.getFraudScore()));
+            out.write(',');
+            out.write(row.getFraudLevel() == null ? "" : row.getFraudLevel().name());
+            out.write(',');
+            out.write(row.getStatus() == null ? "" : row.getStatus().name());
+            out.write(',');
+            out.write(text(row.getDescription()));
+            out.write(',');
+            out.write(row.getCreatedAt() == null ? "" : row.getCreatedAt().toString());
+            out.write("\r\n");
+        }
+
+        @Override
+        public void finish() throws IOException {
+            out.flush();
+        }
+
+        // RFC 4180 quoting; a leading = + - @ is defused so a spreadsheet does not evaluate submitted text
+        static String text(String value) {
+            if (value == null || value.isEmpty()) return "";
+            String safe = "=+-@".indexOf(value.charAt(0)) >= 0 ? "'" + value : value;
+            boolean quote = safe.indexOf(',') >= 0 || safe.indexOf('"') >= 0 || safe.indexOf('\n') >= 0 || safe.indexOf('\r') >= 0;
+            return quote ? '"' + safe.replace("\"", "\"\"") + '"' : safe;
+        }
+    }
+}
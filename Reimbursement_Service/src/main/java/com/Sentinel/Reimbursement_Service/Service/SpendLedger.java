@@ -0,0 +1,136 @@
+package com.Sentinel.Reimbursement_Service.Service;
+
+import com.Sentinel.Reimbursement_Service.Entity.RequestHistory;
+import com.Sentinel.Reimbursement_Service.Repository.DailySpendRepo;
+import com.Sentinel.Reimbursement_Service.Repository.ReimbursementHistoryRepo;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per employee and expense date spend, kept in daily_spend next to request_history so the policy check
+ * reads one row instead of summing every history entry of the day.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class SpendLedger {
+
+    private final ReimbursementHistoryRepo historyRepo;
+    private final DailySpendRepo dailySpendRepo;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${spend.ledger.enabled:true}")
+    private boolean enabled;
+
+    @Value("${spend.ledger.memory.enabled:false}")
+    private boolean memoryEnabled;
+
+    @Value("${spend.ledger.memory.max-entries:100000}")
+    private int memoryMaxEntries;
+
+    @Value("${spend.ledger.reconcile.fix:true}")
+    private boolean fixDrift;
+
+    private StripedSpendCounters counters;
+
+    private final AtomicLong lastDrift = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        if (memoryEnabled) {
+            counters = new StripedSpendCounters(memoryMaxEntries);
+        }
+        meterRegistry.gauge("spend.ledger.drift.rows", lastDrift, AtomicLong::get);
+    }
+
+    public double dailyTotal(String employeeId, LocalDate expenseDate) {
+        if (!enabled) {
+            double total = 0;
+            for (RequestHistory history : historyRepo.findByEmployeeIdAndExpenseDate(employeeId, expenseDate)) {
+                total += history.getAmount();
+            }
+            return total;
+        }
+        if (counters == null) {
+            return readTotal(employeeId, expenseDate);
+        }
+        return counters.get(employeeId, expenseDate, () -> readTotal(employeeId, expenseDate));
+    }
+
+    // must run inside the transaction that saves the history row
+    public void record(RequestHistory history) {
+        if (!enabled) return;
+        dailySpendRepo.add(history.getEmployeeId(), history.getExpenseDate(), history.getAmount());
+        if (counters == null) return;
+
+        String employeeId = history.getEmployeeId();
+        LocalDate date = history.getExpenseDate();
+        double amount = history.getAmount();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            counters.beginWrite(employeeId, date);
+            counters.endWrite(employeeId, date, amount, true);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private boolean begun;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                counters.beginWrite(employeeId, date);
+                begun = true;
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                // beforeCommit is skipped when the transaction rolls back before it gets to commit
+                if (begun) {
+                    counters.endWrite(employeeId, date, amount, status == STATUS_COMMITTED);
+                }
+            }
+        });
+    }
+
+    /**
+     * Compares the ledger with request_history and, unless spend.ledger.reconcile.fix is off, rewrites the rows
+     * that drifted. Also backfills the ledger on the first run after it was introduced. The table lock keeps
+     * history saves from updating the ledger in between, they continue once the reconcile commits.
+     */
+    @Scheduled(initialDelayString = "${spend.ledger.reconcile.initial-delay-ms:0}",
+            fixedDelayString = "${spend.ledger.reconcile.interval-ms:21600000}")
+    public void reconcile() {
+        if (!enabled) return;
+        long start = System.currentTimeMillis();
+        long drift = transactionTemplate.execute(status -> {
+            dailySpendRepo.lockForReconcile();
+            long rows = dailySpendRepo.countDrift();
+            if (rows > 0 && fixDrift) {
+                int rebuilt = dailySpendRepo.rebuildFromHistory();
+                int removed = dailySpendRepo.deleteOrphans();
+                log.warn("spend ledger rebuilt {} and removed {} rows", rebuilt, removed);
+            }
+            return rows;
+        });
+        if (drift > 0 && fixDrift && counters != null) {
+            counters.clear();
+        }
+        lastDrift.set(drift);
+        meterRegistry.counter("spend.ledger.drift.detected").increment(drift);
+        log.info("spend ledger reconciled in {} ms, {} drifted rows", System.currentTimeMillis() - start, drift);
+    }
+
+    private double readTotal(String employeeId, LocalDate expenseDate) {
+        return dailySpendRepo.findTotal(employeeId, expenseDate).orElse(0.0);
+    }
+}
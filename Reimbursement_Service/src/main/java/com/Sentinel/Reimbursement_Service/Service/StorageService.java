@@ -4,7 +4,6 @@ import com.cloudinary.Cloudinary;
 import com.cloudinary.utils.ObjectUtils;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.util.Map;
@@ -25,12 +24,15 @@ public class StorageService {
         ));
     }
 
-    public String upload(MultipartFile file) throws IOException {
-        if(file.isEmpty()) {
+    public String upload(ReceiptBuffer receipt) throws IOException {
+        if(receipt.size() == 0) {
             throw new IllegalArgumentException("File is empty");
         }
 
-        Map uploadResult = cloudinary.uploader().upload(file.getBytes(), ObjectUtils.asMap("resource_type", "auto"));
+        // the uploader only takes a File or a byte[]: spooled receipts go as their temp file, in-memory ones as their own array
+        Object source = receipt.getSpoolFile() != null ? receipt.getSpoolFile()
+                : receipt.heapArray() != null ? receipt.heapArray() : receipt.toByteArray();
+        Map uploadResult = cloudinary.uploader().upload(source, ObjectUtils.asMap("resource_type", "auto"));
         return uploadResult.get("secure_url").toString();
     }
 
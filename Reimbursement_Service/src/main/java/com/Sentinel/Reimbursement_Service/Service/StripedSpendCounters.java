@@ -0,0 +1,107 @@
+package com.Sentinel.Reimbursement_Service.Service;
+
+import java.time.LocalDate;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * In-memory daily totals in front of the daily_spend table, guarded by a fixed set of lock stripes.
+ * A total is loaded from the table on first use and afterwards only moved by committed history writes.
+ * <p>
+ * A writer marks its stripe as pending from beforeCommit until afterCompletion and bumps the stripe
+ * generation at both ends. A load only caches its value if neither happened while it read the table,
+ * otherwise it cannot know whether the value it read already contains that write.
+ */
+public class StripedSpendCounters {
+
+    private static final int STRIPES = 64;
+
+    private final int maxEntries;
+    private final ConcurrentHashMap<Key, Double> totals = new ConcurrentHashMap<>();
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+    private final long[] generations = new long[STRIPES];
+    private final int[] pending = new int[STRIPES];
+
+    public StripedSpendCounters(int maxEntries) {
+        this.maxEntries = maxEntries;
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    public double get(String employeeId, LocalDate date, Supplier<Double> loader) {
+        Key key = new Key(employeeId, date);
+        Double cached = totals.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        int stripe = stripe(key);
+        long generation;
+        locks[stripe].lock();
+        try {
+            generation = generations[stripe];
+        } finally {
+            locks[stripe].unlock();
+        }
+        double loaded = loader.get();
+        locks[stripe].lock();
+        try {
+            if (generations[stripe] == generation && pending[stripe] == 0 && totals.size() < maxEntries) {
+                totals.put(key, loaded);
+            }
+        } finally {
+            locks[stripe].unlock();
+        }
+        return loaded;
+    }
+
+    public void beginWrite(String employeeId, LocalDate date) {
+        int stripe = stripe(new Key(employeeId, date));
+        locks[stripe].lock();
+        try {
+            pending[stripe]++;
+            generations[stripe]++;
+        } finally {
+            locks[stripe].unlock();
+        }
+    }
+
+    public void endWrite(String employeeId, LocalDate date, double amount, boolean committed) {
+        Key key = new Key(employeeId, date);
+        int stripe = stripe(key);
+        locks[stripe].lock();
+        try {
+            pending[stripe]--;
+            generations[stripe]++;
+            if (committed) {
+                totals.computeIfPresent(key, (k, total) -> total + amount);
+            }
+        } finally {
+            locks[stripe].unlock();
+        }
+    }
+
+    public void clear() {
+        for (int i = 0; i < STRIPES; i++) {
+            int stripe = i;
+            locks[stripe].lock();
+            try {
+                generations[stripe]++;
+                totals.keySet().removeIf(key -> stripe(key) == stripe);
+            } finally {
+                locks[stripe].unlock();
+            }
+        }
+    }
+
+    public int size() {
+        return totals.size();
+    }
+
+    private static int stripe(Key key) {
+        return (key.hashCode() & 0x7fffffff) % STRIPES;
+    }
+
+    private record Key(String employeeId, LocalDate date) {}
+}
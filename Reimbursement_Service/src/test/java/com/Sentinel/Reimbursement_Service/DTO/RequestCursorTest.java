@@ -0,0 +1,25 @@
+package com.Sentinel.Reimbursement_Service.DTO;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RequestCursorTest {
+
+    @Test
+    void roundTripsThroughTheToken() {
+        RequestCursor cursor = new RequestCursor(LocalDateTime.of(2025, 3, 9, 14, 5, 7, 123_456_000),
+                "0b4e2f3c-6a1d-4d7e-9f00-1c2b3a4d5e6f");
+        assertEquals(cursor, RequestCursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void rejectsTokensItDidNotIssue() {
+        assertThrows(IllegalArgumentException.class, () -> RequestCursor.decode("not a cursor"));
+        assertThrows(IllegalArgumentException.class, () -> RequestCursor.decode("bm8tc2VwYXJhdG9y"));
+        assertThrows(IllegalArgumentException.class, () -> RequestCursor.decode("eWVzdGVyZGF5fGlk"));
+    }
+}
@@ -0,0 +1,37 @@
+package com.Sentinel.Reimbursement_Service.FraudDetectionEngine;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BloomFilterTest {
+
+    @Test
+    void neverMissesAnAddedKeyAndStaysNearTheTargetRate() {
+        BloomFilter filter = BloomFilter.create(50_000, 0.01);
+        LocalDate day = LocalDate.of(2024, 1, 1);
+        for (int i = 0; i < 50_000; i++) {
+            filter.add(HashIndexService.vendorDateKey("Vendor " + i, day.plusDays(i % 365)));
+        }
+        for (int i = 0; i < 50_000; i++) {
+            assertTrue(filter.mightContain(HashIndexService.vendorDateKey("Vendor " + i, day.plusDays(i % 365))));
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain(HashIndexService.vendorDateKey("Other " + i, day))) falsePositives++;
+        }
+        assertTrue(falsePositives < 2_000, "false positives: " + falsePositives);
+        assertTrue(filter.expectedFalsePositiveRate() < 0.011);
+    }
+
+    @Test
+    void keysIgnoreCaseAndSpacing() {
+        LocalDate day = LocalDate.of(2024, 3, 12);
+        assertEquals(HashIndexService.vendorDateKey("hotel saravana bhavan", day),
+                HashIndexService.vendorDateKey("  Hotel   Saravana\tBhavan ", day));
+    }
+}
@@ -0,0 +1,81 @@
+package com.Sentinel.Reimbursement_Service.FraudDetectionEngine;
+
+import com.Sentinel.Reimbursement_Service.FraudDetectionEngine.HammingIndex.HammingMatch;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class HammingIndexTest {
+
+    private static final int STORED = 5000;
+
+    @Test
+    void matchesLinearScanAtEveryDistance() {
+        SplittableRandom random = new SplittableRandom(42);
+        HammingIndex index = new HammingIndex(HashIndexService.MAX_DISTANCE);
+        long[] hashes = new long[STORED];
+        for (int i = 0; i < STORED; i++) {
+            // every tenth entry repeats an earlier hash, so one distance can carry several ids
+            hashes[i] = i % 10 == 9 ? hashes[random.nextInt(i)] : random.nextLong();
+            index.add("h" + i, hashes[i]);
+        }
+
+        for (int distance = 0; distance <= HashIndexService.MAX_DISTANCE + 1; distance++) {
+            for (int round = 0; round < 200; round++) {
+                long query = flip(hashes[random.nextInt(STORED)], distance, random);
+                for (int maxDistance : new int[]{HashIndexService.MAX_DISTANCE, 5, 0}) {
+                    assertEquals(linearScan(hashes, query, maxDistance), index.nearest(query, maxDistance),
+                            "distance " + distance + " within " + maxDistance);
+                }
+            }
+        }
+    }
+
+    @Test
+    void emptyIndexFindsNothing() {
+        HammingMatch match = new HammingIndex(HashIndexService.MAX_DISTANCE).nearest(0L, HashIndexService.MAX_DISTANCE);
+        assertEquals(HammingMatch.NONE, match);
+        assertFalse(match.found());
+    }
+
+    @Test
+    void rejectsDistancesBeyondItsRadius() {
+        HammingIndex index = new HammingIndex(HashIndexService.MAX_DISTANCE);
+        assertThrows(IllegalArgumentException.class, () -> index.nearest(0L, HashIndexService.MAX_DISTANCE + 1));
+    }
+
+    // the ids come back in insertion order, which is the order of their slots in the index
+    private static HammingMatch linearScan(long[] hashes, long query, int maxDistance) {
+        int best = Integer.MAX_VALUE;
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < hashes.length; i++) {
+            int distance = Long.bitCount(query ^ hashes[i]);
+            if (distance > maxDistance || distance > best) continue;
+            if (distance < best) {
+                best = distance;
+                ids.clear();
+            }
+            ids.add("h" + i);
+        }
+        return ids.isEmpty() ? HammingMatch.NONE : new HammingMatch(best, ids);
+    }
+
+    private static long flip(long hash, int bits, SplittableRandom random) {
+        long flipped = hash;
+        int done = 0;
+        while (done < bits) {
+            long bit = 1L << random.nextInt(64);
+            if (((flipped ^ hash) & bit) == 0) {
+                flipped ^= bit;
+                done++;
+            }
+        }
+        return flipped;
+    }
+}
@@ -0,0 +1,80 @@
+package com.Sentinel.Reimbursement_Service.FraudDetectionEngine;
+
+/**
+ * The regex based SimHash that TextHashService used before the char-level tokenizer.
+ * Kept as the reference implementation for the parity test and the JMH comparison.
+ */
+public final class LegacyTextHash {
+
+    private static final int HASH_BITS = 64;
+
+    private LegacyTextHash() {
+    }
+
+    public static long generateHash(String ocrResult) {
+        if (ocrResult == null || ocrResult.isBlank()) {
+            return 0L;
+        }
+
+        String normalized = ocrResult
+                .toLowerCase()
+                .replaceAll("[^a-z0-9. ]", " ")
+                .replaceAll("\\s+", " ")
+                .trim();
+
+        String[] tokens = normalized.split("\\s+");
+
+        int[] bitVector = new int[HASH_BITS];
+
+        for (String token : tokens) {
+            if (token.length() < 2) continue;
+
+            long hash = hashToken(token);
+
+            int weight = getTokenWeight(token);
+
+            for (int i = 0; i < HASH_BITS; i++) {
+                if (((hash >> i) & 1) == 1) {
+                    bitVector[i] += weight;
+                } else {
+                    bitVector[i] -= weight;
+                }
+            }
+        }
+
+        long simHash = 0L;
+        for (int i = 0; i < HASH_BITS; i++) {
+            if (bitVector[i] > 0) {
+                simHash |= (1L << i);
+            }
+        }
+
+        return simHash;
+    }
+
+    private static long hashToken(String token) {
+        final long FNV_64_PRIME = 0x100000001b3L;
+        long hash = 0xcbf29ce484222325L;
+
+        for (int i = 0; i < token.length(); i++) {
+            hash ^= token.charAt(i);
+            hash *= FNV_64_PRIME;
+        }
+
+        return hash;
+    }
+
+    private static int getTokenWeight(String token) {
+        if (token.matches("\\d+\\.\\d{2}")) {
+            return 5;
+        }
+        if (token.matches("\\d{2}/\\d{2}/\\d{4}") ||
+                token.matches("\\d{4}-\\d{2}-\\d{2}")) {
+            return 4;
+        }
+        if (token.length() > 4 && token.matches("[a-z]+")) {
+            return 2;
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,81 @@
+package com.Sentinel.Reimbursement_Service.FraudDetectionEngine;
+
+import dev.brachtendorf.jimagehash.hashAlgorithms.PerceptiveHash;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SampledImageDecoderTest {
+
+    private final PerceptiveHash pHash = new PerceptiveHash(64);
+    private final SampledImageDecoder decoder = new SampledImageDecoder(32, 2);
+
+    // phone sizes whose sample positions fall on a stride, odd scans and screenshots that do not, and tiny images
+    @Test
+    void hashesMatchFullDecode() throws IOException {
+        int[][] sizes = {{4032, 3024}, {3000, 4000}, {1600, 1200}, {1170, 2532}, {2321, 1743}, {31, 64}, {1, 1}};
+        for (int[] size : sizes) {
+            for (String format : new String[]{"jpg", "png"}) {
+                byte[] encoded = ReceiptImages.encode(ReceiptImages.render(size[0], size[1], size[0] + size[1]), format);
+                long full = hash(ImageIO.read(new ByteArrayInputStream(encoded)));
+                long sampled = hash(decoder.decode(new ByteArrayInputStream(encoded)));
+                assertEquals(full, sampled, size[0] + "x" + size[1] + " " + format);
+            }
+        }
+    }
+
+    @Test
+    void grayscaleJpegsHashTheSame() throws IOException {
+        BufferedImage gray = new BufferedImage(3000, 2000, BufferedImage.TYPE_BYTE_GRAY);
+        gray.getGraphics().drawImage(ReceiptImages.render(3000, 2000, 9), 0, 0, null);
+        byte[] encoded = ReceiptImages.encode(gray, "jpg");
+        long full = hash(ImageIO.read(new ByteArrayInputStream(encoded)));
+        assertEquals(full, hash(decoder.decode(new ByteArrayInputStream(encoded))));
+    }
+
+    // a side that is a multiple of the grid is read every length/32 pixels; the other sides fall back to every pixel
+    @Test
+    void alignedSidesAreSubsampled() {
+        assertEquals(126, decoder.axis(4032).period());
+        assertEquals(125, decoder.axis(4000).period());
+        assertEquals(50, decoder.axis(1600).period());
+        assertEquals(1, decoder.axis(3024).period());
+        assertEquals(1, decoder.axis(2321).period());
+    }
+
+    @Test
+    void keepsAtMostPoolSizeReadersIdle() throws Exception {
+        byte[] encoded = ReceiptImages.encode(ReceiptImages.render(800, 600, 4), "jpg");
+        try (ExecutorService executor = Executors.newFixedThreadPool(6)) {
+            List<Future<BufferedImage>> decodes = new ArrayList<>();
+            for (int i = 0; i < 24; i++) {
+                decodes.add(executor.submit(() -> decoder.decode(new ByteArrayInputStream(encoded))));
+            }
+            for (Future<BufferedImage> decode : decodes) {
+                assertEquals(32, decode.get().getWidth());
+            }
+        }
+        assertTrue(decoder.idleReaders() <= 2);
+    }
+
+    @Test
+    void returnsNullForDataNoReaderUnderstands() throws IOException {
+        assertNull(decoder.decode(new ByteArrayInputStream("%PDF-1.7".getBytes())));
+    }
+
+    private long hash(BufferedImage image) {
+        return pHash.hash(image).getHashValue().longValue();
+    }
+}
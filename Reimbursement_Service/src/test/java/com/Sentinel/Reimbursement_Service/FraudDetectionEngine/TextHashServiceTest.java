@@ -0,0 +1,48 @@
+package com.Sentinel.Reimbursement_Service.FraudDetectionEngine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TextHashServiceTest {
+
+    private final TextHashService service = new TextHashService();
+
+    @Test
+    void matchesLegacyHashOnReceiptText() {
+        String[] samples = {
+                "STARBUCKS COFFEE\nStore #1234\nDate: 12/03/2024 10:15\nLatte 4.50\nTotal 123.45\nPaid by CARD",
+                "Invoice No: INV-2024-03-12\nAmount: 1,234.50\nGST 18% 222.21\nGrand Total Rs. 1456.71",
+                "1.23 .12 12. 1.2.34 12.345 00.00 a .. b.c",
+                "İstanbul Kafe 45.00 KELVIN 100.00 ÄBC déjà vu ₹ 250.00",
+                "   ",
+                "x",
+                ""
+        };
+        for (String sample : samples) {
+            assertEquals(LegacyTextHash.generateHash(sample), service.generateHash(sample), sample);
+        }
+    }
+
+    @Test
+    void matchesLegacyHashOnRandomText() {
+        String alphabet = "abcXYZ0123456789..  \t\n/-,:₹$€İKıÄéßΣ😀\uD83DI";
+        Random random = new Random(42);
+        for (int run = 0; run < 20_000; run++) {
+            StringBuilder text = new StringBuilder();
+            int length = random.nextInt(80);
+            for (int i = 0; i < length; i++) {
+                text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            String sample = text.toString();
+            assertEquals(LegacyTextHash.generateHash(sample), service.generateHash(sample), sample);
+        }
+    }
+
+    @Test
+    void nullTextHashesToZero() {
+        assertEquals(0L, service.generateHash((String) null));
+    }
+}
@@ -0,0 +1,116 @@
+package com.Sentinel.Reimbursement_Service.Service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class EmployeePolicyServiceTest {
+
+    private static final String SINGLE = "http://policy/employee/policy_limit";
+    private static final String BATCH = "http://policy/employee/policy_limits";
+    private static final String ETAG = "\"e1-40b3880000000000\"";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    // only the batch test submits work to it
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+    private final List<ClientRequest> requests = new CopyOnWriteArrayList<>();
+
+    @Test
+    void expiredEntryIsRevalidatedThenServedFromCache() {
+        EmployeePolicyService service = service("");
+
+        ReflectionTestUtils.setField(service, "ttlSeconds", 0L);
+        assertEquals(5000.0, service.getPolicyLimitOfUser("e1"));
+        ReflectionTestUtils.setField(service, "ttlSeconds", 300L);
+        assertEquals(5000.0, service.getPolicyLimitOfUser("e1"));
+        assertEquals(5000.0, service.getPolicyLimitOfUser("e1"));
+
+        assertEquals(2, requests.size());
+        assertNull(requests.get(0).headers().getFirst(HttpHeaders.IF_NONE_MATCH));
+        assertEquals(ETAG, requests.get(1).headers().getFirst(HttpHeaders.IF_NONE_MATCH));
+        assertCounts(1, 1, 1);
+    }
+
+    // two concurrent misses share one batch call, and its ETags let the expired entries revalidate afterwards
+    @Test
+    void batchFilledEntryKeepsItsEtag() throws Exception {
+        EmployeePolicyService service = service(BATCH);
+        service.init();
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            ReflectionTestUtils.setField(service, "ttlSeconds", 0L);
+            Future<Double> first = callers.submit(() -> service.getPolicyLimitOfUser("e1"));
+            Future<Double> second = callers.submit(() -> service.getPolicyLimitOfUser("e2"));
+            assertEquals(5000.0, first.get(5, TimeUnit.SECONDS));
+            assertEquals(7000.0, second.get(5, TimeUnit.SECONDS));
+            ReflectionTestUtils.setField(service, "ttlSeconds", 300L);
+            assertEquals(5000.0, service.getPolicyLimitOfUser("e1"));
+            assertEquals(5000.0, service.getPolicyLimitOfUser("e1"));
+        } finally {
+            service.shutdown();
+            callers.shutdownNow();
+            executor.shutdownNow();
+        }
+
+        assertEquals(2, requests.size());
+        assertEquals(BATCH, requests.get(0).url().toString());
+        assertEquals(ETAG, requests.get(1).headers().getFirst(HttpHeaders.IF_NONE_MATCH));
+        assertCounts(2, 1, 1);
+    }
+
+    private EmployeePolicyService service(String batchUrl) {
+        WebClient client = WebClient.builder().exchangeFunction(request -> {
+            requests.add(request);
+            if (request.url().toString().equals(BATCH)) {
+                return Mono.just(json("{\"e1\":{\"policyLimit\":5000.0,\"etag\":" + quoted(ETAG) + "},"
+                        + "\"e2\":{\"policyLimit\":7000.0,\"etag\":\"\\\"e2\\\"\"}}"));
+            }
+            if (ETAG.equals(request.headers().getFirst(HttpHeaders.IF_NONE_MATCH))) {
+                return Mono.just(ClientResponse.create(HttpStatus.NOT_MODIFIED).header(HttpHeaders.ETAG, ETAG).build());
+            }
+            return Mono.just(json("{\"employeeId\":\"e1\",\"policyLimit\":5000.0}"));
+        }).build();
+        EmployeePolicyService service = new EmployeePolicyService(client, new JsonCodec(), meterRegistry, executor);
+        ReflectionTestUtils.setField(service, "policyServiceUrl", SINGLE);
+        ReflectionTestUtils.setField(service, "policyBatchUrl", batchUrl);
+        ReflectionTestUtils.setField(service, "batchMaxItems", 2);
+        ReflectionTestUtils.setField(service, "batchMaxWaitMs", 10_000L);
+        ReflectionTestUtils.setField(service, "cacheEnabled", true);
+        ReflectionTestUtils.setField(service, "maxEntries", 100);
+        return service;
+    }
+
+    private static ClientResponse json(String body) {
+        return ClientResponse.create(HttpStatus.OK)
+                .header(HttpHeaders.CONTENT_TYPE, "application/json")
+                .header(HttpHeaders.ETAG, ETAG)
+                .body(body)
+                .build();
+    }
+
+    private static String quoted(String etag) {
+        return "\"" + etag.replace("\"", "\\\"") + "\"";
+    }
+
+    private void assertCounts(double miss, double revalidated, double hit) {
+        assertEquals(miss, meterRegistry.counter("policy.limit.cache", "result", "miss").count());
+        assertEquals(revalidated, meterRegistry.counter("policy.limit.cache", "result", "revalidated").count());
+        assertEquals(hit, meterRegistry.counter("policy.limit.cache", "result", "hit").count());
+    }
+}
@@ -0,0 +1,70 @@
+package com.Sentinel.Reimbursement_Service.Service;
+
+import com.Sentinel.Reimbursement_Service.DTO.OCRdata;
+import com.Sentinel.Reimbursement_Service.DTO.Payment;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class JsonCodecTest {
+
+    private final JsonCodec codec = new JsonCodec();
+
+    @Test
+    void extractsGeminiTextWithoutTouchingOtherFields() throws Exception {
+        String response = """
+                {"usageMetadata":{"promptTokenCount":10},"candidates":[{"safetyRatings":[{"a":[1,2,{"text":"no"}]}],
+                "content":{"role":"model","parts":[{"text":"```json\\n{\\"amount\\": 12.50, \\"paymentMode\\": \\"UPI\\", \\"expenseDate\\": \\"2024-03-12\\"}\\n```"},{"text":"second"}]}},
+                {"content":{"parts":[{"text":"other candidate"}]}}]}""";
+
+        OCRdata data = codec.readOCRdata(JsonCodec.stripFences(codec.geminiText(response)));
+
+        assertEquals(12.5, data.getAmount());
+        assertEquals(Payment.UPI, data.getPaymentMode());
+        assertEquals(LocalDate.of(2024, 3, 12), data.getExpenseDate());
+    }
+
+    @Test
+    void missingPathsAreNull() throws Exception {
+        assertNull(codec.geminiText("{\"candidates\":[]}"));
+        assertNull(codec.geminiText("{\"candidates\":[{\"content\":{\"parts\":[{\"text\":null}]}}]}"));
+        assertNull(codec.geminiText("{\"error\":{\"code\":429}}"));
+        assertEquals("", codec.ocrStdout("{\"data\":{\"stderr\":\"boom\"}}"));
+        assertNull(codec.policyLimit("{\"employeeId\":\"e1\",\"policyLimit\":null}"));
+        assertEquals(5000.0, codec.policyLimit("{\"employeeId\":\"e1\",\"policyLimit\":5000.0}"));
+    }
+
+    @Test
+    void fenceStrippingMatchesThePreviousRegexes() {
+        String[] samples = {
+                "```json\n{\"a\":1}\n```",
+                "  ```json   {\"a\":1}```  ",
+                "{\"a\":1}",
+                "```\n[1,2]\n```\n",
+                "prefix ```json\t\r\n{}``` middle ``` end",
+                "``` ```json ```",
+                "",
+                "   "
+        };
+        for (String sample : samples) {
+            String legacy = sample
+                    .replaceAll("```json\\s*", "")
+                    .replaceAll("```\\s*", "")
+                    .replaceAll("^\\s+", "")
+                    .replaceAll("\\s+$", "")
+                    .trim();
+            assertEquals(legacy, JsonCodec.stripFences(sample), sample);
+        }
+    }
+
+    @Test
+    void trailingControlStrippingMatchesThePreviousRegex() {
+        String[] samples = {"text\n\n\f", "text", "", " \u0000\u001F", "a b \t\u000B\r\n", "\u00A0x\u0085"};
+        for (String sample : samples) {
+            assertEquals(sample.replaceAll("[\\s\\u0000-\\u001F]+$", ""), JsonCodec.stripTrailingControl(sample), sample);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.Sentinel.Reimbursement_Service.Service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MicroBatcherTest {
+
+    @Test
+    void failedBatchFallsBackToSingleCallsInParallel() throws Exception {
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try (MicroBatcher<Integer, Integer> batcher = new MicroBatcher<>("test", 2, 10_000,
+                items -> { throw new IllegalStateException("batch down"); },
+                item -> {
+                    bothStarted.countDown();
+                    try {
+                        // a sequential fallback would never see the second call start
+                        assertTrue(bothStarted.await(5, TimeUnit.SECONDS));
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                    return item * 10;
+                }, executor)) {
+            CompletableFuture<Integer> first = batcher.submit(1);
+            CompletableFuture<Integer> second = batcher.submit(2);
+
+            assertEquals(10, first.get(5, TimeUnit.SECONDS).intValue());
+            assertEquals(20, second.get(5, TimeUnit.SECONDS).intValue());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void submitAfterCloseRunsSingleCall() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            MicroBatcher<Integer, Integer> batcher = new MicroBatcher<>("test", 8, 10_000,
+                    items -> items.stream().map(i -> i + 1).toList(), item -> -item, executor);
+            batcher.close();
+
+            assertEquals(-3, batcher.submit(3).get(5, TimeUnit.SECONDS).intValue());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
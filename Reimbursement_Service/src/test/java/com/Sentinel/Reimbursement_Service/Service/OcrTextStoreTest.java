@@ -0,0 +1,50 @@
+package com.Sentinel.Reimbursement_Service.Service;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OcrTextStoreTest {
+
+    private static final String RECEIPT = """
+            CITY CAFE
+            12 Market Street
+            Date: 12/03/2024
+            Cappuccino          4.50
+            Croissant           3.20
+            TOTAL               7.70
+            Thank you for visiting!
+            """;
+
+    @Test
+    void roundTripsReceiptText() {
+        byte[] raw = RECEIPT.repeat(20).getBytes(StandardCharsets.UTF_8);
+        byte[] compressed = OcrTextStore.compress(raw, 6);
+        assertTrue(compressed.length < raw.length / 4);
+        assertArrayEquals(raw, OcrTextStore.decompress(compressed, raw.length));
+    }
+
+    @Test
+    void roundTripsEmptyAndNonAsciiText() {
+        byte[] empty = new byte[0];
+        assertArrayEquals(empty, OcrTextStore.decompress(OcrTextStore.compress(empty, 6), 0));
+
+        byte[] raw = "Café Müller — Σ 12,50 €".getBytes(StandardCharsets.UTF_8);
+        assertEquals("Café Müller — Σ 12,50 €",
+                new String(OcrTextStore.decompress(OcrTextStore.compress(raw, 1), raw.length), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void rejectsTruncatedData() {
+        byte[] raw = RECEIPT.getBytes(StandardCharsets.UTF_8);
+        byte[] compressed = OcrTextStore.compress(raw, 6);
+        byte[] truncated = Arrays.copyOf(compressed, compressed.length / 2);
+        assertThrows(RuntimeException.class, () -> OcrTextStore.decompress(truncated, raw.length));
+    }
+}
@@ -0,0 +1,92 @@
+package com.Sentinel.Reimbursement_Service.Service;
+
+import com.Sentinel.Reimbursement_Service.DTO.LocalExtraction;
+import com.Sentinel.Reimbursement_Service.DTO.OCRdata;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the extractor over the labelled OCR outputs in src/test/resources/receipts. A null label means the
+ * field is not checked. Add new receipts (and their labels) there when a layout is misread in production.
+ */
+class ReceiptFieldExtractorTest {
+
+    private static final double THRESHOLD = 0.8;
+    private static final List<String> REQUIRED = List.of(
+            ReceiptFieldExtractor.AMOUNT, ReceiptFieldExtractor.EXPENSE_DATE, ReceiptFieldExtractor.VENDOR_NAME);
+
+    private final ReceiptFieldExtractor extractor = new ReceiptFieldExtractor();
+
+    @Test
+    void confidentFieldsMatchLabelsAndMostReceiptsSkipGemini() throws IOException {
+        JsonNode labels = new ObjectMapper().readTree(resource("labels.json"));
+        int hits = 0;
+        for (JsonNode label : labels) {
+            String file = label.get("file").asText();
+            LocalExtraction result = extractor.extract(new String(resource(file), StandardCharsets.UTF_8));
+            OCRdata data = result.getData();
+            Map<String, Object> actual = new HashMap<>();
+            actual.put(ReceiptFieldExtractor.AMOUNT, data.getAmount());
+            actual.put(ReceiptFieldExtractor.EXPENSE_DATE, data.getExpenseDate() == null ? null : data.getExpenseDate().toString());
+            actual.put(ReceiptFieldExtractor.VENDOR_NAME, data.getVendorName());
+            actual.put(ReceiptFieldExtractor.BILL_NUMBER, data.getBillNumber());
+            actual.put(ReceiptFieldExtractor.TAX_AMOUNT, data.getTaxAmount());
+            actual.put(ReceiptFieldExtractor.PAYMENT_MODE, data.getPaymentMode() == null ? null : data.getPaymentMode().name());
+
+            for (Map.Entry<String, Object> field : actual.entrySet()) {
+                JsonNode expected = label.get(field.getKey());
+                if (expected == null || expected.isNull() || result.confidenceOf(field.getKey()) < THRESHOLD) continue;
+                Object value = expected.isNumber() ? (Object) expected.asDouble() : expected.asText();
+                assertEquals(value, field.getValue(), file + " " + field.getKey());
+            }
+            if (result.isConfident(THRESHOLD, REQUIRED)) {
+                hits++;
+            }
+        }
+        double hitRate = (double) hits / labels.size();
+        assertTrue(hitRate >= 0.7, "hit rate dropped to " + hitRate);
+    }
+
+    @Test
+    void garbledTextFallsBackToGemini() throws IOException {
+        LocalExtraction result = extractor.extract(new String(resource("09-garbled.txt"), StandardCharsets.UTF_8));
+        assertFalse(result.isConfident(THRESHOLD, REQUIRED));
+        assertNull(result.getData().getAmount());
+    }
+
+    @Test
+    void firstLineWithoutReceiptHeaderIsNotTrusted() {
+        LocalExtraction result = extractor.extract("""
+                Thank you for visiting
+                Paneer Tikka      1    250.00
+                Total                  250.00
+                """);
+        assertTrue(result.confidenceOf(ReceiptFieldExtractor.VENDOR_NAME) < THRESHOLD);
+    }
+
+    @Test
+    void emptyTextHasNoFields() {
+        assertTrue(extractor.extract("").getConfidence().isEmpty());
+        assertTrue(extractor.extract(null).getConfidence().isEmpty());
+    }
+
+    private static byte[] resource(String name) throws IOException {
+        try (InputStream in = ReceiptFieldExtractorTest.class.getResourceAsStream("/receipts/" + name)) {
+            if (in == null) throw new IOException("missing test receipt " + name);
+            return in.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.Sentinel.Reimbursement_Service.Service;
+
+import com.Sentinel.Reimbursement_Service.FraudDetectionEngine.ReceiptImages;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReceiptImagePreprocessorTest {
+
+    @Test
+    void readsOrientationFromBothByteOrders() {
+        byte[] jpeg = ReceiptImages.encode(ReceiptImages.render(200, 100, 1), "jpg");
+        assertEquals(1, ReceiptImagePreprocessor.exifOrientation(ByteBuffer.wrap(jpeg)));
+        assertEquals(6, ReceiptImagePreprocessor.exifOrientation(ByteBuffer.wrap(withOrientation(jpeg, 6, ByteOrder.BIG_ENDIAN))));
+        assertEquals(8, ReceiptImagePreprocessor.exifOrientation(ByteBuffer.wrap(withOrientation(jpeg, 8, ByteOrder.LITTLE_ENDIAN))));
+        assertEquals(1, ReceiptImagePreprocessor.exifOrientation(ByteBuffer.wrap("%PDF-1.7".getBytes())));
+    }
+
+    @Test
+    void rotatesUprightAndScalesTheLongestEdge() {
+        // a dark block in the top left corner of the stored image ends up top right after a 90 degree turn
+        BufferedImage image = new BufferedImage(400, 200, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < 200; y++) {
+            for (int x = 0; x < 400; x++) {
+                image.setRGB(x, y, x < 100 && y < 100 ? 0x000000 : 0xFFFFFF);
+            }
+        }
+        BufferedImage upright = ReceiptImagePreprocessor.toGray(image, 6, 100);
+        assertEquals(50, upright.getWidth());
+        assertEquals(100, upright.getHeight());
+        assertEquals(BufferedImage.TYPE_BYTE_GRAY, upright.getType());
+        assertTrue(upright.getRaster().getSample(40, 10, 0) < 64);
+        assertTrue(upright.getRaster().getSample(10, 90, 0) > 192);
+    }
+
+    @Test
+    void convertsPhotosAndLeavesWhatItCannotRead() throws IOException {
+        ReceiptImagePreprocessor preprocessor = new ReceiptImagePreprocessor(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(preprocessor, "enabled", true);
+        ReflectionTestUtils.setField(preprocessor, "maxEdge", 1000);
+        ReflectionTestUtils.setField(preprocessor, "binarize", true);
+
+        byte[] jpeg = ReceiptImages.encode(ReceiptImages.render(3000, 2000, 2), "jpg");
+        ReceiptBuffer prepared = preprocessor.prepare(ReceiptBuffer.wrap(jpeg, "receipt.jpeg", "image/jpeg"));
+        assertEquals("receipt.png", prepared.getFilename());
+        assertTrue(prepared.size() < jpeg.length);
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(prepared.toByteArray()));
+        assertEquals(1000, decoded.getWidth());
+        assertEquals(667, decoded.getHeight());
+
+        ReceiptBuffer pdf = ReceiptBuffer.wrap("%PDF-1.7".getBytes(), "receipt.pdf", "application/pdf");
+        assertSame(pdf, preprocessor.prepare(pdf));
+    }
+
+    // inserts an APP1 Exif segment holding only the orientation tag right after SOI
+    private static byte[] withOrientation(byte[] jpeg, int orientation, ByteOrder order) {
+        ByteBuffer tiff = ByteBuffer.allocate(8 + 2 + 12 + 4).order(order);
+        tiff.putShort(order == ByteOrder.LITTLE_ENDIAN ? (short) 0x4949 : (short) 0x4D4D);
+        tiff.putShort((short) 42).putInt(8);
+        tiff.putShort((short) 1);
+        tiff.putShort((short) 0x0112).putShort((short) 3).putInt(1).putShort((short) orientation).putShort((short) 0);
+        tiff.putInt(0);
+
+        int length = 2 + 6 + tiff.capacity();
+        ByteBuffer out = ByteBuffer.allocate(jpeg.length + 2 + length);
+        out.put(jpeg, 0, 2);
+        out.put((byte) 0xFF).put((byte) 0xE1).putShort((short) length);
+        out.put("Exif".getBytes()).put((byte) 0).put((byte) 0);
+        out.put(tiff.array());
+        out.put(jpeg, 2, jpeg.length - 2);
+        return out.array();
+    }
+}
@@ -0,0 +1,67 @@
+package com.Sentinel.Reimbursement_Service.Service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class StripedSpendCountersTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 12);
+
+    private final StripedSpendCounters counters = new StripedSpendCounters(100);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private double get(double dbTotal) {
+        return counters.get("emp-1", DAY, () -> {
+            loads.incrementAndGet();
+            return dbTotal;
+        });
+    }
+
+    @Test
+    void committedWritesMoveALoadedTotal() {
+        assertEquals(100.0, get(100.0));
+        counters.beginWrite("emp-1", DAY);
+        counters.endWrite("emp-1", DAY, 50.0, true);
+        counters.beginWrite("emp-1", DAY);
+        counters.endWrite("emp-1", DAY, 70.0, false);
+
+        assertEquals(150.0, get(-1));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void loadRacingACommitIsNotCached() {
+        // the table already contains the write, but the write's afterCompletion has not run yet
+        counters.beginWrite("emp-1", DAY);
+        assertEquals(150.0, get(150.0));
+        counters.endWrite("emp-1", DAY, 50.0, true);
+
+        assertEquals(150.0, get(150.0));
+        assertEquals(150.0, get(-1));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void writeDuringLoadDiscardsTheLoadedValue() {
+        counters.get("emp-1", DAY, () -> {
+            counters.beginWrite("emp-1", DAY);
+            counters.endWrite("emp-1", DAY, 50.0, true);
+            return 100.0;
+        });
+
+        assertEquals(150.0, get(150.0));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void clearForgetsEverything() {
+        get(100.0);
+        counters.clear();
+        assertEquals(0, counters.size());
+        assertEquals(120.0, get(120.0));
+    }
+}
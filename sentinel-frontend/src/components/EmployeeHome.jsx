@@ -3,6 +3,8 @@ import { useNavigate, useLocation } from 'react-router-dom';
 import { Shield, LogOut, ChevronDown, ChevronUp, AlertTriangle, CheckCircle, Clock, Plus, FileText } from 'lucide-react';
 import api from '../api/axios';
 
+const PAGE_SIZE = 25;
+
 const EmployeeHome = () => {
   const navigate = useNavigate();
   const location = useLocation();
@@ -10,6 +12,8 @@ const EmployeeHome = () => {
   const [expandedId, setExpandedId] = useState(null);
   const [requests, setRequests] = useState([]);
   const [loading, setLoading] = useState(true);
+  const [loadingMore, setLoadingMore] = useState(false);
+  const [nextCursor, setNextCursor] = useState(null);
 
   useEffect(() => {
     const employeeData = location.state?.employee || JSON.parse(sessionStorage.getItem('employee') || 'null');
@@ -23,17 +27,26 @@ const EmployeeHome = () => {
     fetchRequests(employeeData.id);
   }, [location, navigate]);
 
-  const fetchRequests = async (employeeId) => {
+  const fetchRequests = async (employeeId, cursor) => {
+    const params = { size: PAGE_SIZE };
+    if (cursor) params.cursor = cursor;
     try {
-      const response = await api.get(`/reimbursement/requests/${employeeId}`);
-      setRequests(response.data);
-      setLoading(false);
+      const response = await api.get(`/reimbursement/requests/${employeeId}/page`, { params });
+      setRequests((previous) => (cursor ? [...previous, ...response.data.items] : response.data.items));
+      setNextCursor(response.data.nextCursor);
     } catch (error) {
       console.error('Error fetching requests:', error);
+    } finally {
       setLoading(false);
+      setLoadingMore(false);
     }
   };
 
+  const loadMore = () => {
+    setLoadingMore(true);
+    fetchRequests(employee.id, nextCursor);
+  };
+
   const handleLogout = () => {
     sessionStorage.removeItem('employee');
     navigate('/');
@@ -256,6 +269,18 @@ const EmployeeHome = () => {
               </div>
             ))
           )}
+
+          {nextCursor && (
+            <div className="flex justify-center pt-2">
+              <button
+                onClick={loadMore}
+                disabled={loadingMore}
+                className="px-6 py-2 bg-white border border-gray-300 rounded-lg shadow-sm hover:bg-gray-50 text-gray-700 font-medium disabled:opacity-50"
+              >
+                {loadingMore ? 'Loading...' : 'Load more'}
+              </button>
+            </div>
+          )}
         </div>
       </div>
     </div>
@@ -4,27 +4,51 @@ import { useNavigate } from 'react-router-dom';
 import { ArrowLeft, FileText } from 'lucide-react';
 import api from '../api/axios';
 
+const PAGE_SIZE = 25;
+const FRAUD_LEVELS = ['LOW', 'MEDIUM', 'HIGH', 'CONFIRMED'];
+const STATUSES = ['PENDING', 'UPLOADED', 'OCR_COMPLETED', 'EXTRACTED', 'COMPLETED', 'FAILED'];
+
 const ReimbursementRequests = () => {
   const [expandedId, setExpandedId] = useState(null);
   const [requests, setRequests] = useState([]);
   const [loading, setLoading] = useState(true);
+  const [loadingMore, setLoadingMore] = useState(false);
+  const [nextCursor, setNextCursor] = useState(null);
+  const [filters, setFilters] = useState({ fraudLevel: '', status: '', from: '', to: '' });
   const navigate = useNavigate();
 
   useEffect(() => {
-    fetchRequests();
-  }, []);
+    fetchRequests(null);
+  }, [filters]);
 
-  const fetchRequests = async () => {
+  // the server filters and pages (newest first), only the cursor of the last page is kept here
+  const fetchRequests = async (cursor) => {
+    const params = { size: PAGE_SIZE };
+    Object.entries(filters).forEach(([key, value]) => {
+      if (value) params[key] = value;
+    });
+    if (cursor) params.cursor = cursor;
     try {
-      const response = await api.get('/reimbursement/requests');
-      setRequests(response.data);
-      setLoading(false);
+      const response = await api.get('/reimbursement/requests/page', { params });
+      setRequests((previous) => (cursor ? [...previous, ...response.data.items] : response.data.items));
+      setNextCursor(response.data.nextCursor);
     } catch (error) {
       console.error('Error fetching requests:', error);
+    } finally {
       setLoading(false);
+      setLoadingMore(false);
     }
   };
 
+  const loadMore = () => {
+    setLoadingMore(true);
+    fetchRequests(nextCursor);
+  };
+
+  const updateFilter = (key, value) => {
+    setFilters((previous) => ({ ...previous, [key]: value }));
+  };
+
   const toggleExpand = (id) => {
     setExpandedId(expandedId === id ? null : id);
   };
@@ -110,6 +134,56 @@ const ReimbursementRequests = () => {
         </div>
       </div>
     <div className="max-w-6xl mx-auto p-6 space-y-4">
+      <div className="bg-white rounded-lg border border-gray-200 shadow-sm p-4 grid grid-cols-2 md:grid-cols-4 gap-4 text-sm">
+        <label className="flex flex-col gap-1">
+          <span className="font-medium text-gray-600">Fraud Level</span>
+          <select
+            value={filters.fraudLevel}
+            onChange={(e) => updateFilter('fraudLevel', e.target.value)}
+            className="border border-gray-300 rounded-md px-3 py-2"
+          >
+            <option value="">All</option>
+            {FRAUD_LEVELS.map((level) => (
+              <option key={level} value={level}>{level}</option>
+            ))}
+          </select>
+        </label>
+
+        <label className="flex flex-col gap-1">
+          <span className="font-medium text-gray-600">Status</span>
+          <select
+            value={filters.status}
+            onChange={(e) => updateFilter('status', e.target.value)}
+            className="border border-gray-300 rounded-md px-3 py-2"
+          >
+            <option value="">All</option>
+            {STATUSES.map((status) => (
+              <option key={status} value={status}>{status}</option>
+            ))}
+          </select>
+        </label>
+
+        <label className="flex flex-col gap-1">
+          <span className="font-medium text-gray-600">Expense From</span>
+          <input
+            type="date"
+            value={filters.from}
+            onChange={(e) => updateFilter('from', e.target.value)}
+            className="border border-gray-300 rounded-md px-3 py-2"
+          />
+        </label>
+
+        <label className="flex flex-col gap-1">
+          <span className="font-medium text-gray-600">Expense To</span>
+          <input
+            type="date"
+            value={filters.to}
+            onChange={(e) => updateFilter('to', e.target.value)}
+            className="border border-gray-300 rounded-md px-3 py-2"
+          />
+        </label>
+      </div>
+
       {requests.length === 0 ? (
         <div className="text-center py-12 text-gray-500">No requests found</div>
       ) : (
@@ -206,6 +280,18 @@ const ReimbursementRequests = () => {
           </div>
         ))
       )}
+
+      {nextCursor && (
+        <div className="flex justify-center pt-2">
+          <button
+            onClick={loadMore}
+            disabled={loadingMore}
+            className="px-6 py-2 bg-white border border-gray-300 rounded-lg shadow-sm hover:bg-gray-50 text-gray-700 font-medium disabled:opacity-50"
+          >
+            {loadingMore ? 'Loading...' : 'Load more'}
+          </button>
+        </div>
+      )}
     </div>
     </div>
   );